@@ -1,7 +1,7 @@
 module nbody {
     requires transitive javafx.controls;
     requires transitive javafx.graphics;
+    requires transitive nbody.physics;
     exports nbody;
-    exports nbody.PhysicsEngine;
     exports nbody.gui;
 }
\ No newline at end of file
@@ -1,33 +1,48 @@
 package nbody;
 
-import java.io.BufferedWriter;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.util.Random;
-import java.util.Vector;
 
 import javafx.animation.AnimationTimer;
 import javafx.application.Application;
-import javafx.geometry.Point2D;
 import javafx.scene.Scene;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.layout.StackPane;
 import javafx.scene.paint.Color;
 import javafx.stage.Stage;
+import nbody.PhysicsEngine.CollisionEngine;
 import nbody.PhysicsEngine.CollisionManager;
+import nbody.PhysicsEngine.GravityEngine;
 import nbody.PhysicsEngine.GravityManager;
-import nbody.PhysicsEngine.VerletObject;
+import nbody.PhysicsEngine.GravitySolver;
+import nbody.PhysicsEngine.Integrator;
+import nbody.PhysicsEngine.IntegratorType;
+import nbody.PhysicsEngine.MortonQuadTree;
+import nbody.PhysicsEngine.QuadTree;
+import nbody.PhysicsEngine.ParticleStore;
+import nbody.PhysicsEngine.PhysicsThread;
+import nbody.PhysicsEngine.Snapshot;
+import nbody.PhysicsEngine.VerletSystemManger;
 import nbody.gui.Maingui;
+import nbody.telemetry.BackPressure;
 
 public class Main extends Application {
     private static final int WIDTH = 800;
     private static final int HEIGHT = 600;
     
     
-    private Vector<VerletObject> objects = new Vector<>();
+    private VerletSystemManger systemManager = new VerletSystemManger();
     private CollisionManager collisionManager;
-    private long lastTime = 0;
+    private GravitySolver gravitySolver;
+    private Integrator integrator;
+    private PhysicsThread physics;
+
+    // Fixed physics step, roughly one 60 FPS frame
+    private static final float PHYSICS_DT = 0.016f;
+
+    // Tracking records that can queue up, in bytes, before the back-pressure policy kicks in
+    private static final long TELEMETRY_BUFFER_BYTES = 64L << 20;
 
 
     @Override
@@ -40,131 +55,64 @@ public class Main extends Application {
 
             initializeObjects(values.getObjectCount(), values.getMass(), values.getMassVariance(),
                     values.getDiameter(), values.getDiameterVariance());
-            collisionManager = new CollisionManager(objects);
+            collisionManager = new CollisionManager(systemManager);
+            collisionManager.setSolver(CollisionEngine.byName(values.getCollisionEngine()));
+            gravitySolver = GravityEngine.byName(values.getGravityEngine());
+            integrator = IntegratorType.byName(values.getIntegrator());
+            GravityManager.setThreadCount(values.getThreadCount());
+            int leafCapacity = values.getLeafCapacity();
+            int maxTreeDepth = values.getMaxTreeDepth();
+            if (values.useMortonTree()) {
+                GravityManager.setSpatialTree(new MortonQuadTree(leafCapacity, maxTreeDepth));
+            }
+            else {
+                GravityManager.setSpatialTree(new QuadTree(leafCapacity, maxTreeDepth));
+            }
+            // One tree build per step serves both the collision and the gravity phase
+            collisionManager.setSpatialIndex(GravityManager.getSpatialIndex());
+
+            // Physics runs on its own thread at a fixed step, the timer below only draws
+            physics = new PhysicsThread(systemManager.getStore(), PHYSICS_DT, dt -> {
+                updateObjects(dt);
+                collisionManager.solve();
+            });
+            physics.setTimeLimit(values.getTimeToTrack());
+
+            // Tracking reduces what it needs on the physics thread after every step,
+            // the formatting and file writes happen on the telemetry thread
+            try {
+                TrackingOutput tracking = new TrackingOutput(values, systemManager, PHYSICS_DT);
+                if (!tracking.isEmpty()) {
+                    tracking.start(BackPressure.byName(values.getTrackingBackPressure()), TELEMETRY_BUFFER_BYTES);
+                    physics.setStepListener(tracking);
+                }
+            }
+            catch (IOException e) {
+                e.printStackTrace();
+            }
 
             AnimationTimer timer = new AnimationTimer() {
-                private double elapsedTime = 0; // Track simulation time
-                private BufferedWriter singleWriter;
-                private BufferedWriter duoWriter;
-                private BufferedWriter allWriter;
-
-                {
-                    // Initialize file writer based on the selected tracking option
-                    try {
-                        if (values.getSingleTrackObject() != null) {
-                            singleWriter = new BufferedWriter(new FileWriter("single_object_tracking.txt"));
-                            singleWriter.write("Mass: " + objects.get(values.getSingleTrackObject()).getMass() + " kg\n");
-                            singleWriter.write("Diameter: " + objects.get(values.getSingleTrackObject()).getRadius() * 2 + " m\n\n");
-                            singleWriter.write("Time (s)\tAcceleration (m/s²)\tVelocity (m/s)\tPosition (m, m)\t\tForces felt (MN)\n");
-                        } 
-                        if (values.getRelationshipObject1() != null) {
-                            duoWriter = new BufferedWriter(new FileWriter("two_object_relationship_tracking.txt"));
-                            duoWriter.write("Mass 1: " + objects.get(values.getRelationshipObject1()).getMass() + " kg\n");
-                            duoWriter.write("Diameter 1: " + objects.get(values.getRelationshipObject1()).getRadius() * 2 + " m\n");
-                            duoWriter.write("Mass 2: " + objects.get(values.getRelationshipObject2()).getMass() + " kg\n");
-                            duoWriter.write("Diameter 2: " + objects.get(values.getRelationshipObject2()).getRadius() * 2 + " m\n\n");
-                            duoWriter.write("Time (s)\tDistance (m)\tGravitational Force (MN)\n");
-                        } 
-                        if (values.isTrackAll()) {
-                            allWriter = new BufferedWriter(new FileWriter("all_object_tracking.txt"));
-                            allWriter.write("Number of objects: " + objects.size() + "\n\n");
-                            allWriter.write("Time (s)     Force(MN)");
-                            allWriter.write("\n\n");
-                        }
-                    } 
-                    catch (IOException e) {
-                        e.printStackTrace();
-                    }
-                } 
-
                 @Override
                 public void handle(long now) {
-                    // Calculate delta time
-                    float dt;
-                    if (lastTime == 0) {
-                        dt = 0.016f; // Initial default timestep (roughly 60 FPS)
-                    } else {
-                        dt = (float)((now - lastTime) / 1e9); // Convert nanoseconds to seconds
-                    }
-                    lastTime = now;
-                    elapsedTime += dt;
-
-                     
-                    // Stop tracking if time exceeds the specified limit
-                    if (elapsedTime > values.getTimeToTrack()) {
-                        stop();
-                        return; 
-                    }
-                    
+                    // Checked first so the last step is always drawn before stopping
+                    boolean finished = physics.isFinished();
+                    Snapshot snapshot = physics.latestSnapshot();
 
                     // Clear canvas
                     gc.setFill(Color.BLACK);
                     gc.fillRect(0, 0, WIDTH, HEIGHT);
 
-                    // Update physics
-                    updateObjects(dt);
-
-                    if (values.useBruteForce()) {
-                        collisionManager.BruteForceSolve();
-                        GravityManager.computeForcesBruteForce(objects);
-                    }
-                    else {
-                        collisionManager.quadTreeCollision();
-                        GravityManager.computeForcesWithQuadTree(objects);
-                    }
-
                     // Draw objects
                     gc.setFill(Color.SKYBLUE);
-                    for (VerletObject obj : objects) {
-                        Point2D pos = obj.getPosition();
-                        float radius = obj.getRadius();
-                        gc.fillOval(pos.getX() - radius, pos.getY() - radius, radius * 2, radius * 2);
+                    for (int i = 0; i < snapshot.size(); i++) {
+                        float radius = snapshot.getRadius(i);
+                        gc.fillOval(snapshot.getX(i) - radius, snapshot.getY(i) - radius, radius * 2, radius * 2);
                     }
 
-                    
-                    // Write tracking data
-                    try {
-                        if (values.getSingleTrackObject() != null) {
-                            VerletObject obj = objects.get(0); // Assuming the first object is tracked
-                            singleWriter.write(String.format("%.2f\t\t%.2f\t\t\t%.2f\t\t(%.2f, %.2f)\t\t%.2f\n",
-                                    elapsedTime, obj.getAcceleration().magnitude(),
-                                    obj.getVelo(dt).magnitude(),
-                                    obj.getPosition().getX(), obj.getPosition().getY(),
-                                    obj.getForce().magnitude() / 1e6));
-                            singleWriter.flush();
-                        } 
-                        if (values.getRelationshipObject1() != null) {
-                            VerletObject obj1 = objects.get(0); // Assuming first two objects
-                            VerletObject obj2 = objects.get(1);
-                            double distance = obj1.getPosition().distance(obj2.getPosition());
-                            double gravitationalForce = GravityManager.getMagnitudeForce(obj1, obj2);
-                            duoWriter.write(String.format("%.2f\t\t%.2f\t\t%.2f\n", elapsedTime, distance, gravitationalForce / 1e6));
-                            duoWriter.flush();
-                        } 
-                        if (values.isTrackAll()) {
-                            allWriter.write(String.format("Time: %.2f\n", elapsedTime));
-
-                            // Chunk size (number of objects per line)
-                            int chunkSize = 10;
-
-                            // Write forces in chunks
-                            for (int i = 0; i < objects.size(); i++) {
-                                if (i % chunkSize == 0) {
-                                    if (i > 0) allWriter.write("\n"); // Start a new line for a new chunk
-                                    allWriter.write(String.format("Chunk %d:", i / chunkSize + 1));
-                                }
-
-                                // Write data for this object
-                                VerletObject obj = objects.get(i);
-                                allWriter.write(String.format("\tObj%d: %-10.2f", i + 1, obj.getForce().magnitude() / 1e6));
-                            }
-                            allWriter.write("\n\n");
-                            allWriter.flush();
-                        }
-                    } catch (IOException e) {
-                        e.printStackTrace();
+                    // Stop once the tracked time is over and the last step is on screen
+                    if (finished) {
+                        stop();
                     }
-                    
                 }
             };
 
@@ -174,12 +122,13 @@ public class Main extends Application {
             primaryStage.setTitle("N-Body Simulation with Verlet Integration");
             primaryStage.setScene(scene);
             primaryStage.show();
+            physics.start();
             timer.start();
 
             gui.close();
         });
 
-        Scene guiScene = new Scene(gui.getGrid(), 300, 475); 
+        Scene guiScene = new Scene(gui.getGrid(), 300, 775); 
         primaryStage.setTitle("N-Body Configuration");
         primaryStage.setScene(guiScene);
         primaryStage.setResizable(false);
@@ -189,35 +138,47 @@ public class Main extends Application {
 
     private void initializeObjects(int numBodies, double mass, double massVariance, double diameter, double diameterVariance) {
         Random rand = new Random();
+        systemManager.getStore().ensureCapacity(numBodies);
         for (int i = 0; i < numBodies; i++) {
             double x = rand.nextDouble() * WIDTH;
             double y = rand.nextDouble() * HEIGHT;
-            Point2D position = new Point2D(x, y);
 
             double randomMass = (mass + (rand.nextDouble() - 0.5) * massVariance) * 1e12;
             double randomDiameter = diameter + (rand.nextDouble() - 0.5) * diameterVariance;
 
-            VerletObject obj = new VerletObject(position, (float) randomDiameter / 2, (float) randomMass);
-            objects.add(obj);
+            systemManager.addObject(x, y, (float) randomDiameter / 2, (float) randomMass);
         }
     }
 
 
     private void updateObjects(float dt) {
-        for (VerletObject obj : objects) {
-            Point2D Grav = new Point2D(0,1);
-            // Update position using Verlet integration
-            obj.update(dt);
-            
-            // Handle boundary conditions
-            Point2D pos = obj.getPosition();
-            Point2D newPos = new Point2D(
-                Math.max(obj.getRadius(), Math.min(WIDTH - obj.getRadius(), pos.getX())),
-                Math.max(obj.getRadius(), Math.min(HEIGHT - obj.getRadius(), pos.getY()))
-            );
-     
-            obj.SetPosition(newPos);
-            //obj.AddAcceleration(Grav);
+        ParticleStore store = systemManager.getStore();
+
+        // Gravity and the position update, as often as the chosen integrator needs
+        integrator.step(store, dt, gravitySolver);
+
+        // Handle boundary conditions
+        boolean clamped = false;
+        for (int i = 0; i < store.size(); i++) {
+            float radius = store.getRadius(i);
+            double x = Math.max(radius, Math.min(WIDTH - radius, store.getX(i)));
+            double y = Math.max(radius, Math.min(HEIGHT - radius, store.getY(i)));
+            if (x != store.getX(i) || y != store.getY(i)) {
+                store.setPosition(i, x, y);
+                clamped = true;
+            }
+        }
+        if (clamped) {
+            GravityManager.getSpatialIndex().markNudged();
+        }
+    }
+
+
+    // Closing the window ends the run too, so the tracking files get closed
+    @Override
+    public void stop() {
+        if (physics != null) {
+            physics.stop();
         }
     }
 
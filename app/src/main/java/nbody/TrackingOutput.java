@@ -0,0 +1,328 @@
+package nbody;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Path;
+
+import nbody.PhysicsEngine.GravityManager;
+import nbody.PhysicsEngine.ParticleStore;
+import nbody.PhysicsEngine.PhysicsThread;
+import nbody.PhysicsEngine.VerletObject;
+import nbody.PhysicsEngine.VerletSystemManger;
+import nbody.gui.Maingui.SimulationValues;
+import nbody.telemetry.BackPressure;
+import nbody.telemetry.SystemAggregates;
+import nbody.telemetry.TelemetryPipeline;
+import nbody.telemetry.TelemetrySink;
+import nbody.telemetry.WindowReducer;
+import nbody.trajectory.TrajectoryFormat;
+import nbody.trajectory.TrajectoryWriter;
+
+// The tracking files picked in the GUI.
+// Every step the tracked values go into running min / max / mean / last
+// reducers on the physics thread. Every sample interval steps the reduced
+// window, and for "track all" the current state of every body, is copied into
+// a TelemetryPipeline record, and the pipeline's writer thread formats and
+// writes it. So both the output and the ring traffic scale with the sample
+// interval, not the step count. With an interval of 1 the files look like
+// they always did.
+//
+// Record layout: steps in the window, then the single object's stats, the
+// pair's, the system totals' and a trajectory frame, each only if tracked.
+class TrackingOutput implements PhysicsThread.StepListener {
+    private static final int SINGLE_VALUES = 5;    // acceleration, velocity, x, y, force
+    private static final int PAIR_VALUES = 2;      // distance, force
+
+    private static final String[] SINGLE_NAMES = {
+        "Acceleration (m/s²)", "Velocity (m/s)", "Position x (m)", "Position y (m)", "Forces felt (MN)"
+    };
+    private static final String[] PAIR_NAMES = { "Distance (m)", "Gravitational Force (MN)" };
+
+    private final ParticleStore store;
+    private final float dt;
+    private final int sampleInterval;
+    private final VerletObject single;
+    private final VerletObject first;
+    private final VerletObject second;
+    private final int singleBody;
+    private final int firstBody;
+    private final int secondBody;
+
+    // Physics thread side
+    private final WindowReducer singleStats;
+    private final WindowReducer pairStats;
+    private final WindowReducer systemStats;
+    private final double[] sample = new double[Math.max(SINGLE_VALUES, SystemAggregates.CHANNELS)];
+
+    private final int singleOffset;
+    private final int pairOffset;
+    private final int systemOffset;
+    private final int allOffset;
+    private final int recordWidth;
+
+    private final Writer writer;
+    private TelemetryPipeline telemetry;
+
+
+    TrackingOutput(SimulationValues values, VerletSystemManger systemManager, float dt) throws IOException {
+        this.store = systemManager.getStore();
+        this.dt = dt;
+        this.sampleInterval = Math.max(1, values.getSampleInterval());
+        Integer singleIndex = values.getSingleTrackObject();
+        Integer firstIndex = values.getRelationshipObject1();
+        single = singleIndex == null ? null : systemManager.getObjects().get(singleIndex);
+        first = firstIndex == null ? null : systemManager.getObjects().get(firstIndex);
+        second = firstIndex == null ? null : systemManager.getObjects().get(values.getRelationshipObject2());
+        // afterStep() reads the store by index so the per step path allocates nothing
+        singleBody = single == null ? -1 : single.getIndex();
+        firstBody = first == null ? -1 : first.getIndex();
+        secondBody = second == null ? -1 : second.getIndex();
+
+        singleStats = single == null ? null : new WindowReducer(SINGLE_VALUES);
+        pairStats = first == null ? null : new WindowReducer(PAIR_VALUES);
+        systemStats = values.isTrackSystem() ? new WindowReducer(SystemAggregates.CHANNELS) : null;
+
+        singleOffset = 1;
+        pairOffset = singleOffset + width(singleStats);
+        systemOffset = pairOffset + width(pairStats);
+        allOffset = systemOffset + width(systemStats);
+
+        writer = new Writer(values);
+        recordWidth = allOffset + (writer.allWriter != null ? writer.allWriter.getFrameWidth() : 0);
+    }
+
+
+    private static int width(WindowReducer reducer) {
+        return reducer == null ? 0 : reducer.getWidth();
+    }
+
+
+    boolean isEmpty() {
+        return recordWidth == 1;
+    }
+
+
+    // Starts the writer thread, bufferBytes of records may queue up before policy applies
+    void start(BackPressure policy, long bufferBytes) {
+        telemetry = new TelemetryPipeline("telemetry", recordWidth,
+                TelemetryPipeline.capacityFor(recordWidth, bufferBytes), policy, writer);
+    }
+
+
+    // Physics thread from here to finished()
+    @Override
+    public void afterStep(double time, long step) {
+        if (singleStats != null) {
+            int i = singleBody;
+            double acceleration = Math.hypot(store.getLastAccelX(i), store.getLastAccelY(i));
+            sample[0] = acceleration;
+            sample[1] = Math.hypot(store.getX(i) - store.getOldX(i), store.getY(i) - store.getOldY(i)) / dt;
+            sample[2] = store.getX(i);
+            sample[3] = store.getY(i);
+            sample[4] = acceleration * store.getMass(i) / 1e6;
+            singleStats.add(sample, 0);
+        }
+        if (pairStats != null) {
+            sample[0] = Math.hypot(store.getX(secondBody) - store.getX(firstBody),
+                    store.getY(secondBody) - store.getY(firstBody));
+            sample[1] = GravityManager.getMagnitudeForce(store, firstBody, secondBody) / 1e6;
+            pairStats.add(sample, 0);
+        }
+        if (systemStats != null) {
+            SystemAggregates.compute(store, dt, sample, 0);
+            systemStats.add(sample, 0);
+        }
+        if (step % sampleInterval == 0) {
+            report(step, time);
+        }
+    }
+
+
+    // Hands the finished window to the writer thread and starts a new one
+    private void report(long step, double time) {
+        double[] record = telemetry.claim(step, time);
+        if (record != null) {
+            long count = 0;
+            if (singleStats != null) {
+                singleStats.copyTo(record, singleOffset);
+                count = singleStats.getCount();
+            }
+            if (pairStats != null) {
+                pairStats.copyTo(record, pairOffset);
+                count = pairStats.getCount();
+            }
+            if (systemStats != null) {
+                systemStats.copyTo(record, systemOffset);
+                count = systemStats.getCount();
+            }
+            record[0] = count;
+            if (writer.allWriter != null) {
+                TrajectoryWriter.capture(store, dt, TrajectoryFormat.ALL, record, allOffset);
+            }
+            telemetry.commit();
+        }
+        // A dropped window is lost as a whole, the next one starts fresh either way
+        if (singleStats != null) {
+            singleStats.reset();
+        }
+        if (pairStats != null) {
+            pairStats.reset();
+        }
+        if (systemStats != null) {
+            systemStats.reset();
+        }
+    }
+
+
+    @Override
+    public void finished(double time, long steps) {
+        if (telemetry == null) {
+            return;
+        }
+        // Whatever is left of the last window
+        if (steps % sampleInterval != 0) {
+            report(steps, time);
+        }
+        telemetry.close();
+    }
+
+
+    // Writer thread side, formats the records
+    private final class Writer implements TelemetrySink {
+        private BufferedWriter singleWriter;
+        private BufferedWriter duoWriter;
+        private BufferedWriter systemWriter;
+        private TrajectoryWriter allWriter;
+
+        Writer(SimulationValues values) throws IOException {
+            try {
+                if (single != null) {
+                    singleWriter = new BufferedWriter(new FileWriter("single_object_tracking.txt"));
+                    singleWriter.write("Mass: " + single.getMass() + " kg\n");
+                    singleWriter.write("Diameter: " + single.getRadius() * 2 + " m\n\n");
+                    if (sampleInterval == 1) {
+                        singleWriter.write("Time (s)\tAcceleration (m/s²)\tVelocity (m/s)\tPosition (m, m)\t\tForces felt (MN)\n");
+                    }
+                    else {
+                        writeWindowHeader(singleWriter, SINGLE_NAMES);
+                    }
+                }
+                if (first != null) {
+                    duoWriter = new BufferedWriter(new FileWriter("two_object_relationship_tracking.txt"));
+                    duoWriter.write("Mass 1: " + first.getMass() + " kg\n");
+                    duoWriter.write("Diameter 1: " + first.getRadius() * 2 + " m\n");
+                    duoWriter.write("Mass 2: " + second.getMass() + " kg\n");
+                    duoWriter.write("Diameter 2: " + second.getRadius() * 2 + " m\n\n");
+                    if (sampleInterval == 1) {
+                        duoWriter.write("Time (s)\tDistance (m)\tGravitational Force (MN)\n");
+                    }
+                    else {
+                        writeWindowHeader(duoWriter, PAIR_NAMES);
+                    }
+                }
+                if (systemStats != null) {
+                    systemWriter = new BufferedWriter(new FileWriter("system_tracking.txt"));
+                    systemWriter.write("Number of objects: " + store.size() + "\n\n");
+                    writeWindowHeader(systemWriter, SystemAggregates.NAMES);
+                }
+                if (values.isTrackAll()) {
+                    // Full state of every body at the end of each window, binary so it keeps
+                    // up with thousands of bodies. TrajectoryToCsv turns it into text
+                    allWriter = new TrajectoryWriter(Path.of("all_object_tracking.traj"), store, dt);
+                }
+            }
+            catch (IOException e) {
+                close();
+                throw e;
+            }
+        }
+
+
+        // Time, steps in the window, then min / max / mean / last of every quantity
+        private void writeWindowHeader(BufferedWriter out, String[] names) throws IOException {
+            StringBuilder header = new StringBuilder("Time (s)\tSteps");
+            for (String name : names) {
+                header.append('\t').append(name).append(" min\tmax\tmean\tlast");
+            }
+            out.write(header.append('\n').toString());
+        }
+
+
+        private void writeWindow(BufferedWriter out, double time, long count, double[] record, int offset, int channels)
+                throws IOException {
+            StringBuilder line = new StringBuilder(String.format("%.2f\t%d", time, count));
+            for (int k = 0; k < channels * WindowReducer.STATS; k++) {
+                line.append(String.format("\t%.4g", record[offset + k]));
+            }
+            out.write(line.append('\n').toString());
+        }
+
+
+        @Override
+        public void write(long step, double time, double[] record) throws IOException {
+            long count = (long) record[0];
+            if (singleWriter != null) {
+                if (sampleInterval == 1) {
+                    singleWriter.write(String.format("%.2f\t\t%.2f\t\t\t%.2f\t\t(%.2f, %.2f)\t\t%.2f\n", time,
+                            last(record, singleOffset, 0), last(record, singleOffset, 1), last(record, singleOffset, 2),
+                            last(record, singleOffset, 3), last(record, singleOffset, 4)));
+                }
+                else {
+                    writeWindow(singleWriter, time, count, record, singleOffset, SINGLE_VALUES);
+                }
+            }
+            if (duoWriter != null) {
+                if (sampleInterval == 1) {
+                    duoWriter.write(String.format("%.2f\t\t%.2f\t\t%.2f\n", time,
+                            last(record, pairOffset, 0), last(record, pairOffset, 1)));
+                }
+                else {
+                    writeWindow(duoWriter, time, count, record, pairOffset, PAIR_VALUES);
+                }
+            }
+            if (systemWriter != null) {
+                writeWindow(systemWriter, time, count, record, systemOffset, SystemAggregates.CHANNELS);
+            }
+            if (allWriter != null) {
+                allWriter.writeFrame(step, time, record, allOffset);
+            }
+        }
+
+
+        private double last(double[] record, int offset, int channel) {
+            return record[offset + channel * WindowReducer.STATS + WindowReducer.LAST];
+        }
+
+
+        @Override
+        public void flush() throws IOException {
+            if (singleWriter != null) {
+                singleWriter.flush();
+            }
+            if (duoWriter != null) {
+                duoWriter.flush();
+            }
+            if (systemWriter != null) {
+                systemWriter.flush();
+            }
+        }
+
+
+        @Override
+        public void close() throws IOException {
+            if (singleWriter != null) {
+                singleWriter.close();
+            }
+            if (duoWriter != null) {
+                duoWriter.close();
+            }
+            if (systemWriter != null) {
+                systemWriter.close();
+            }
+            if (allWriter != null) {
+                allWriter.close();
+            }
+        }
+    }
+}
@@ -8,11 +8,16 @@ import javafx.application.Application;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
 import javafx.scene.control.CheckBox;
+import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextField;
 import javafx.scene.control.TextFormatter;
 import javafx.scene.layout.GridPane;
 import javafx.stage.Stage;
+import nbody.PhysicsEngine.CollisionEngine;
+import nbody.PhysicsEngine.GravityEngine;
+import nbody.PhysicsEngine.IntegratorType;
+import nbody.telemetry.BackPressure;
 
 public class Maingui extends Application {
 
@@ -51,7 +56,33 @@ public class Maingui extends Application {
 
     private CheckBox allCheck;
 
-    private CheckBox bruteForceCheck;
+    private CheckBox systemCheck;
+
+    private Label sampleIntervalLabel;
+    private TextField sampleIntervalField;
+
+    private Label backPressureLabel;
+    private ComboBox<String> backPressureBox;
+
+    private Label gravityEngineLabel;
+    private ComboBox<String> gravityEngineBox;
+
+    private Label collisionEngineLabel;
+    private ComboBox<String> collisionEngineBox;
+
+    private CheckBox mortonTreeCheck;
+
+    private Label integratorLabel;
+    private ComboBox<String> integratorBox;
+
+    private Label leafCapacityLabel;
+    private TextField leafCapacityField;
+
+    private Label treeDepthLabel;
+    private TextField treeDepthField;
+
+    private Label threadCountLabel;
+    private TextField threadCountField;
 
     private Button runButton;
 
@@ -97,7 +128,45 @@ public class Maingui extends Application {
 
         allCheck = new CheckBox("Track All Objects");
 
-        bruteForceCheck = new CheckBox("Use Brute Force Calculation");
+        systemCheck = new CheckBox("Track System Totals");
+
+        sampleIntervalLabel = new Label("Report Every (steps):");
+        sampleIntervalField = createNumericTextField();
+        sampleIntervalField.setText("1");
+
+        backPressureLabel = new Label("When Disk Falls Behind:");
+        backPressureBox = new ComboBox<>();
+        backPressureBox.getItems().addAll(BackPressure.names());
+        backPressureBox.setValue(BackPressure.BLOCK.getName());
+
+        gravityEngineLabel = new Label("Gravity Engine:");
+        gravityEngineBox = new ComboBox<>();
+        gravityEngineBox.getItems().addAll(GravityEngine.names());
+        gravityEngineBox.setValue(GravityEngine.BARNES_HUT.getName());
+
+        collisionEngineLabel = new Label("Collision Engine:");
+        collisionEngineBox = new ComboBox<>();
+        collisionEngineBox.getItems().addAll(CollisionEngine.names());
+        collisionEngineBox.setValue(CollisionEngine.QUAD_TREE.getName());
+
+        mortonTreeCheck = new CheckBox("Use Morton Order Tree");
+
+        integratorLabel = new Label("Integrator:");
+        integratorBox = new ComboBox<>();
+        integratorBox.getItems().addAll(IntegratorType.names());
+        integratorBox.setValue(IntegratorType.VERLET.getName());
+
+        leafCapacityLabel = new Label("Tree Leaf Capacity:");
+        leafCapacityField = createNumericTextField();
+        leafCapacityField.setText("4");
+
+        treeDepthLabel = new Label("Max Tree Depth:");
+        treeDepthField = createNumericTextField();
+        treeDepthField.setText("16");
+
+        threadCountLabel = new Label("Threads (0 = all cores):");
+        threadCountField = createNumericTextField();
+        threadCountField.setText("1");
 
         runButton = new Button("Run Simulation");
 
@@ -123,6 +192,10 @@ public class Maingui extends Application {
                 Integer singleTrackObject = trackSingleCheck.isSelected() ? Integer.parseInt(singleTrackField.getText()) : null;
                 Integer relationshipObject1 = trackRelationshipsCheck.isSelected() ? Integer.parseInt(firstObjectField.getText()) : null;
                 Integer relationshipObject2 = trackRelationshipsCheck.isSelected() ? Integer.parseInt(secondObjectField.getText()) : null;
+                int threadCount = threadCountField.getText().isEmpty() ? 1 : Integer.parseInt(threadCountField.getText());
+                int leafCapacity = leafCapacityField.getText().isEmpty() ? 4 : Integer.parseInt(leafCapacityField.getText());
+                int treeDepth = treeDepthField.getText().isEmpty() ? 16 : Integer.parseInt(treeDepthField.getText());
+                int sampleInterval = sampleIntervalField.getText().isEmpty() ? 1 : Integer.parseInt(sampleIntervalField.getText());
         
                 SimulationValues values = new SimulationValues(
                         Double.parseDouble(massField.getText()),
@@ -135,7 +208,16 @@ public class Maingui extends Application {
                         relationshipObject1,
                         relationshipObject2,
                         allCheck.isSelected(),
-                        bruteForceCheck.isSelected()
+                        gravityEngineBox.getValue(),
+                        collisionEngineBox.getValue(),
+                        mortonTreeCheck.isSelected(),
+                        integratorBox.getValue(),
+                        leafCapacity,
+                        treeDepth,
+                        threadCount,
+                        backPressureBox.getValue(),
+                        systemCheck.isSelected(),
+                        sampleInterval
                 );
                 onRun.accept(values);
             }
@@ -179,16 +261,43 @@ public class Maingui extends Application {
         grid.add(allCheck, 0, row, 2, 1);
         row++;
 
-        grid.add(bruteForceCheck, 0, row, 2, 1);
+        grid.add(systemCheck, 0, row, 2, 1);
+        row++;
+
+        grid.add(sampleIntervalLabel, 0, row);
+        grid.add(sampleIntervalField, 1, row++);
+
+        grid.add(backPressureLabel, 0, row);
+        grid.add(backPressureBox, 1, row++);
+
+        grid.add(gravityEngineLabel, 0, row);
+        grid.add(gravityEngineBox, 1, row++);
+
+        grid.add(collisionEngineLabel, 0, row);
+        grid.add(collisionEngineBox, 1, row++);
+
+        grid.add(mortonTreeCheck, 0, row, 2, 1);
         row++;
 
+        grid.add(integratorLabel, 0, row);
+        grid.add(integratorBox, 1, row++);
+
+        grid.add(leafCapacityLabel, 0, row);
+        grid.add(leafCapacityField, 1, row++);
+
+        grid.add(treeDepthLabel, 0, row);
+        grid.add(treeDepthField, 1, row++);
+
+        grid.add(threadCountLabel, 0, row);
+        grid.add(threadCountField, 1, row++);
+
         grid.add(runButton, 1, row, 1, 1);
     }
 
 
     @Override
     public void start(Stage primaryStage) {
-        Scene scene = new Scene(getGrid(), 300, 450);
+        Scene scene = new Scene(getGrid(), 300, 750);
         primaryStage.setTitle("N-Body Simulation");
         primaryStage.setScene(scene);
         primaryStage.setResizable(false);
@@ -245,12 +354,24 @@ public class Maingui extends Application {
         private final Integer relationshipObject1;
         private final Integer relationshipObject2;
         private final boolean trackAll;
-        private final boolean bruteForce;
+        private final String gravityEngine;
+        private final String collisionEngine;
+        private final boolean mortonTree;
+        private final String integrator;
+        private final int leafCapacity;
+        private final int maxTreeDepth;
+        private final int threadCount;
+        private final String trackingBackPressure;
+        private final boolean trackSystem;
+        private final int sampleInterval;
 
         public SimulationValues(double mass, double massVariance, double diameter, double diameterVariance,
                                 int objectCount, double timeToTrack, Integer singleTrackObject,
                                 Integer relationshipObject1, Integer relationshipObject2, boolean trackAll,
-                                boolean bruteForce) {
+                                String gravityEngine, String collisionEngine, boolean mortonTree,
+                                String integrator, int leafCapacity, int maxTreeDepth,
+                                int threadCount, String trackingBackPressure, boolean trackSystem,
+                                int sampleInterval) {
             this.mass = mass;
             this.massVariance = massVariance;
             this.diameter = diameter;
@@ -261,7 +382,16 @@ public class Maingui extends Application {
             this.relationshipObject1 = relationshipObject1;
             this.relationshipObject2 = relationshipObject2;
             this.trackAll = trackAll;
-            this.bruteForce = bruteForce;
+            this.gravityEngine = gravityEngine;
+            this.collisionEngine = collisionEngine;
+            this.mortonTree = mortonTree;
+            this.integrator = integrator;
+            this.leafCapacity = leafCapacity;
+            this.maxTreeDepth = maxTreeDepth;
+            this.threadCount = threadCount;
+            this.trackingBackPressure = trackingBackPressure;
+            this.trackSystem = trackSystem;
+            this.sampleInterval = sampleInterval;
         }
 
         public double getMass() {
@@ -304,8 +434,45 @@ public class Maingui extends Application {
             return trackAll;
         }
 
-        public boolean useBruteForce() {
-            return bruteForce;
+        public String getGravityEngine() {
+            return gravityEngine;
+        }
+
+        public String getCollisionEngine() {
+            return collisionEngine;
+        }
+
+        public boolean useMortonTree() {
+            return mortonTree;
+        }
+
+        public String getIntegrator() {
+            return integrator;
+        }
+
+        public int getLeafCapacity() {
+            return leafCapacity;
+        }
+
+        public int getMaxTreeDepth() {
+            return maxTreeDepth;
+        }
+
+        public int getThreadCount() {
+            return threadCount;
+        }
+
+        public String getTrackingBackPressure() {
+            return trackingBackPressure;
+        }
+
+        public boolean isTrackSystem() {
+            return trackSystem;
+        }
+
+        // Steps per line of tracking output, each line reduces that many steps
+        public int getSampleInterval() {
+            return sampleInterval;
         }
     }
 }
@@ -0,0 +1,7 @@
+module nbody.physics {
+    requires jdk.incubator.vector;
+    exports nbody.PhysicsEngine;
+    exports nbody.headless;
+    exports nbody.telemetry;
+    exports nbody.trajectory;
+}
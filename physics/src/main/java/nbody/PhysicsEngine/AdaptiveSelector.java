@@ -0,0 +1,95 @@
+package nbody.PhysicsEngine;
+
+import java.util.Arrays;
+import java.util.List;
+
+// Times candidate engines on live steps and keeps the fastest.
+// Each candidate runs TRIAL_STEPS real steps, then the quickest one is used
+// until the candidate list changes, RECHECK_STEPS steps pass, or its running
+// average drifts to SLOWDOWN times its trial time.
+class AdaptiveSelector<S> {
+    private static final int TRIAL_STEPS = 3;
+    private static final int RECHECK_STEPS = 600;
+    private static final double SLOWDOWN = 2.0;
+
+    private List<S> candidates = List.of();
+    private long[] trialTime = new long[0];
+    private int trialIndex;
+    private int trialStep;
+    private boolean retrial;
+
+    private S current;
+    private double bestTime;
+    private double averageTime;
+    private int stepsSinceTrial;
+
+
+    // The engine to use for the next step
+    S choose(List<S> options) {
+        if (!options.equals(candidates) || retrial || stepsSinceTrial >= RECHECK_STEPS) {
+            restart(options);
+        }
+        if (trialIndex < candidates.size()) {
+            current = candidates.get(trialIndex);
+        }
+        return current;
+    }
+
+
+    // How long the step with the last chosen engine took
+    void record(long nanos) {
+        if (trialIndex < candidates.size()) {
+            trialTime[trialIndex] = Math.min(trialTime[trialIndex], nanos);
+            if (++trialStep == TRIAL_STEPS) {
+                trialStep = 0;
+                trialIndex++;
+                if (trialIndex == candidates.size()) {
+                    pickFastest();
+                }
+            }
+            return;
+        }
+
+        averageTime = 0.9 * averageTime + 0.1 * nanos;
+        stepsSinceTrial++;
+        if (averageTime > SLOWDOWN * bestTime) {
+            retrial = true;
+        }
+    }
+
+
+    private void restart(List<S> options) {
+        candidates = options;
+        trialTime = new long[options.size()];
+        Arrays.fill(trialTime, Long.MAX_VALUE);
+        trialIndex = 0;
+        trialStep = 0;
+        retrial = false;
+        stepsSinceTrial = 0;
+        if (options.size() == 1) {
+            // Nothing to compare
+            trialIndex = 1;
+            current = options.get(0);
+            bestTime = Double.MAX_VALUE;
+            averageTime = 0;
+        }
+    }
+
+
+    private void pickFastest() {
+        int best = 0;
+        for (int k = 1; k < candidates.size(); k++) {
+            if (trialTime[k] < trialTime[best]) {
+                best = k;
+            }
+        }
+        current = candidates.get(best);
+        bestTime = trialTime[best];
+        averageTime = bestTime;
+    }
+
+
+    S current() {
+        return current;
+    }
+}
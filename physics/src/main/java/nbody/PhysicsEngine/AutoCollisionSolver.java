@@ -0,0 +1,45 @@
+package nbody.PhysicsEngine;
+
+import java.util.List;
+
+// Times the collision engines on live steps and keeps the fastest.
+// Brute force is only tried for small systems where its lack of setup can win,
+// and the parallel grid only when there is more than one worker thread.
+public class AutoCollisionSolver implements CollisionSolver {
+    private static final int BRUTE_FORCE_LIMIT = 500;
+
+    private static final List<CollisionSolver> SMALL =
+            List.of(CollisionEngine.BRUTE_FORCE, CollisionEngine.QUAD_TREE, CollisionEngine.SPATIAL_HASH,
+                    CollisionEngine.SWEEP_AND_PRUNE, CollisionEngine.NEIGHBOR_LIST);
+    private static final List<CollisionSolver> LARGE =
+            List.of(CollisionEngine.QUAD_TREE, CollisionEngine.SPATIAL_HASH,
+                    CollisionEngine.SWEEP_AND_PRUNE, CollisionEngine.NEIGHBOR_LIST);
+    private static final List<CollisionSolver> SMALL_PARALLEL =
+            List.of(CollisionEngine.BRUTE_FORCE, CollisionEngine.QUAD_TREE, CollisionEngine.SPATIAL_HASH,
+                    CollisionEngine.SWEEP_AND_PRUNE, CollisionEngine.NEIGHBOR_LIST, CollisionEngine.PARALLEL_GRID);
+    private static final List<CollisionSolver> LARGE_PARALLEL =
+            List.of(CollisionEngine.QUAD_TREE, CollisionEngine.SPATIAL_HASH,
+                    CollisionEngine.SWEEP_AND_PRUNE, CollisionEngine.NEIGHBOR_LIST, CollisionEngine.PARALLEL_GRID);
+
+    private final AdaptiveSelector<CollisionSolver> selector = new AdaptiveSelector<>();
+
+
+    @Override
+    public String getName() {
+        CollisionSolver current = selector.current();
+        return CollisionEngine.AUTO + (current != null ? " (" + current.getName() + ")" : "");
+    }
+
+
+    @Override
+    public void solveCollisions(CollisionManager manager) {
+        boolean small = manager.store.size() <= BRUTE_FORCE_LIMIT;
+        List<CollisionSolver> candidates = GravityManager.getThreadCount() > 1
+                ? (small ? SMALL_PARALLEL : LARGE_PARALLEL)
+                : (small ? SMALL : LARGE);
+        CollisionSolver solver = selector.choose(candidates);
+        long start = System.nanoTime();
+        solver.solveCollisions(manager);
+        selector.record(System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,109 @@
+package nbody.PhysicsEngine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Picks the cheapest gravity engine for the current workload.
+// Body count and how spread out the bodies are decide which engines are worth
+// trying (the exact sum only while it is affordable, the uniform grid based
+// FMM and particle-mesh only when the bodies are not bunched up), then the
+// candidates are timed on live steps and the fastest is kept.
+public class AutoGravitySolver implements GravitySolver {
+    private static final int BRUTE_FORCE_LIMIT = 20_000;
+    private static final int MULTIPOLE_MIN = 20_000;
+    private static final int PARTICLE_MESH_MIN = 200_000;
+    private static final int SPREAD_CHECK_STEPS = 60;
+    private static final int SPREAD_GRID = 32;
+    private static final double CLUSTERED_OCCUPANCY = 0.25;
+
+    private final AdaptiveSelector<GravitySolver> selector = new AdaptiveSelector<>();
+    private final int[] occupancy = new int[SPREAD_GRID * SPREAD_GRID];
+    private List<GravitySolver> candidates = List.of(GravityEngine.BARNES_HUT);
+    private int lastCount = -1;
+    private int stepsSinceCheck;
+
+
+    @Override
+    public String getName() {
+        GravitySolver current = selector.current();
+        return GravityEngine.AUTO + (current != null ? " (" + current.getName() + ")" : "");
+    }
+
+
+    @Override
+    public void computeForces(ParticleStore store) {
+        GravitySolver solver = choose(store);
+        long start = System.nanoTime();
+        solver.computeForces(store);
+        record(System.nanoTime() - start);
+    }
+
+
+    // The engine to use for the next step, for callers that run it their own way.
+    // They report the time it took through record()
+    GravitySolver choose(ParticleStore store) {
+        int n = store.size();
+        if (n != lastCount || ++stepsSinceCheck >= SPREAD_CHECK_STEPS) {
+            candidates = candidatesFor(store);
+            lastCount = n;
+            stepsSinceCheck = 0;
+        }
+        return selector.choose(candidates);
+    }
+
+
+    void record(long nanos) {
+        selector.record(nanos);
+    }
+
+
+    private List<GravitySolver> candidatesFor(ParticleStore store) {
+        int n = store.size();
+        boolean clustered = isClustered(store);
+        List<GravitySolver> options = new ArrayList<>();
+
+        if (n <= BRUTE_FORCE_LIMIT) {
+            options.add(GravityEngine.BRUTE_FORCE);
+        }
+        options.add(GravityEngine.BARNES_HUT);
+        if (n >= MULTIPOLE_MIN && !clustered) {
+            options.add(GravityEngine.FAST_MULTIPOLE);
+        }
+        if (n >= PARTICLE_MESH_MIN && !clustered) {
+            options.add(GravityEngine.PARTICLE_MESH);
+        }
+        return options;
+    }
+
+
+    // Share of the cells of a coarse grid over the bounding box that hold a body,
+    // relative to what evenly spread bodies would fill
+    private boolean isClustered(ParticleStore store) {
+        int n = store.size();
+        if (n < 2) {
+            return false;
+        }
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            minX = Math.min(minX, store.x[i]);
+            minY = Math.min(minY, store.y[i]);
+            maxX = Math.max(maxX, store.x[i]);
+            maxY = Math.max(maxY, store.y[i]);
+        }
+        double side = Math.max(Math.max(maxX - minX, maxY - minY), 1e-9) * 1.0001;
+
+        Arrays.fill(occupancy, 0);
+        int filled = 0;
+        for (int i = 0; i < n; i++) {
+            int cx = (int) ((store.x[i] - minX) / side * SPREAD_GRID);
+            int cy = (int) ((store.y[i] - minY) / side * SPREAD_GRID);
+            if (occupancy[cy * SPREAD_GRID + cx]++ == 0) {
+                filled++;
+            }
+        }
+        int expected = Math.min(n, occupancy.length);
+        return filled < CLUSTERED_OCCUPANCY * expected;
+    }
+}
@@ -0,0 +1,350 @@
+package nbody.PhysicsEngine;
+
+import java.util.Arrays;
+
+// Hierarchical block timesteps for gravity, kick-drift-kick.
+// A frame of length dt is cut into 2^maxLevel ticks and every body sits on a
+// level L, taking steps of dt / 2^L. The level comes from how fast the body's
+// acceleration changes, eta * |a| / |da/dt| (eta * sqrt(radius / |a|) before
+// there is a previous force to compare with). Only the bodies whose step ends
+// on a tick get new forces there, everyone else drifts on the velocity of their
+// last half kick. A body may drop to any finer level at the end of a step but
+// only goes up one level, and only when the tick lines up with the coarser
+// step, so the whole system is back in sync at the end of the frame.
+//
+// The store keeps positions only, so velocities are read from x - oldX at the
+// start of a frame and written back the same way at the end. Whatever is in
+// ax / ay when step() is called is applied as a constant acceleration for the
+// whole frame.
+//
+// Barnes-Hut and brute force gravity are evaluated for the due bodies only.
+// Fast multipole and particle-mesh have no way to do a subset, so with those
+// every body is kept on level 0 and the frame is a single kick-drift-kick with
+// one whole-system evaluation, the same cost as Verlet. Auto is resolved to the
+// engine it picks for the frame, and is told how long the frame's gravity took.
+//
+// The Barnes-Hut tree is not rebuilt for every tick. Between ticks the bodies
+// only drift a little, so the tree just gets its mass moments refreshed
+// (SpatialIndex.markNudged), and it is rebuilt on the REBUILD_LEVEL tick grid.
+public class BlockTimestepIntegrator implements Integrator {
+    public static final int DEFAULT_MAX_LEVEL = 6;
+    public static final double DEFAULT_ETA = 0.05;
+
+    // The tree is rebuilt every dt / 2^REBUILD_LEVEL, i.e. four times a frame
+    private static final int REBUILD_LEVEL = 2;
+
+    private final int maxLevel;
+    private final int ticksPerFrame;
+    private final double eta;
+
+    private ParticleStore store;
+    private GravitySolver gravity;      // the engine for this frame, never Auto
+    private boolean subsets;            // gravity can evaluate the due bodies only
+    private int count;
+    private float lastDt;
+
+    private double[] vx = new double[0];
+    private double[] vy = new double[0];
+    private double[] gravityX = new double[0];    // gravity at the body's last force update
+    private double[] gravityY = new double[0];
+    private double[] externalX = new double[0];
+    private double[] externalY = new double[0];
+    private int[] level = new int[0];
+    private boolean[] evaluated = new boolean[0];
+    private final int[] levelCount;
+
+    private int[] active = new int[0];
+    private int activeCount;
+
+    private long forceEvaluations;
+    private long frames;
+    private long stepNanos;
+    private long gravityNanos;
+
+
+    public BlockTimestepIntegrator() {
+        this(DEFAULT_MAX_LEVEL, DEFAULT_ETA);
+    }
+
+    public BlockTimestepIntegrator(int maxLevel, double eta) {
+        if (maxLevel < 0 || maxLevel > 20 || eta <= 0) {
+            throw new IllegalArgumentException("Max level must be 0..20 and eta > 0");
+        }
+        this.maxLevel = maxLevel;
+        this.ticksPerFrame = 1 << maxLevel;
+        this.eta = eta;
+        this.levelCount = new int[maxLevel + 1];
+    }
+
+
+    @Override
+    public String getName() {
+        return IntegratorType.BLOCK_TIMESTEPS.getName();
+    }
+
+
+    // Advances every body by dt under Barnes-Hut gravity and whatever is already in ax / ay
+    public void step(ParticleStore store, float dt) {
+        step(store, dt, GravityEngine.BARNES_HUT);
+    }
+
+
+    @Override
+    public void step(ParticleStore store, float dt, GravitySolver gravity) {
+        long start = System.nanoTime();
+        long gravityStart = gravityNanos;
+        AutoGravitySolver auto = gravity instanceof AutoGravitySolver a ? a : null;
+        this.gravity = auto != null ? auto.choose(store) : gravity;
+        subsets = this.gravity == GravityEngine.BARNES_HUT || this.gravity == GravityEngine.BRUTE_FORCE;
+        int n = store.size();
+        if (store != this.store || n != count) {
+            reset(store);
+        }
+        if (!subsets) {
+            Arrays.fill(level, 0, n, 0);
+        }
+        double frameVelocityScale = 1.0 / (lastDt > 0 ? lastDt : dt);
+        double tick = (double) dt / ticksPerFrame;
+        frames++;
+
+        for (int i = 0; i < n; i++) {
+            vx[i] = (store.x[i] - store.oldX[i]) * frameVelocityScale;
+            vy[i] = (store.y[i] - store.oldY[i]) * frameVelocityScale;
+            externalX[i] = store.ax[i];
+            externalY[i] = store.ay[i];
+        }
+
+        // Bodies that have never had a force get one now and a level from |a| alone
+        activeCount = 0;
+        for (int i = 0; i < n; i++) {
+            if (!evaluated[i]) {
+                active[activeCount++] = i;
+            }
+        }
+        if (activeCount > 0) {
+            evaluateActive();
+            for (int k = 0; k < activeCount; k++) {
+                int i = active[k];
+                gravityX[i] = store.ax[i];
+                gravityY[i] = store.ay[i];
+                evaluated[i] = true;
+                level[i] = chooseLevel(i, dt, Math.hypot(gravityX[i], gravityY[i]), 0);
+            }
+        }
+
+        // Everyone starts a step at the frame start
+        Arrays.fill(levelCount, 0);
+        for (int i = 0; i < n; i++) {
+            levelCount[level[i]]++;
+            kick(i, ticksOf(level[i]) * tick / 2);
+        }
+
+        int now = 0;
+        while (now < ticksPerFrame) {
+            int next = now + ticksOf(finestLevel());
+            drift(n, (next - now) * tick);
+            now = next;
+
+            // Positions moved, the tree either gets rebuilt or just has its moments refreshed
+            if (now % ticksOf(Math.min(REBUILD_LEVEL, maxLevel)) == 0) {
+                store.advanceGeneration();
+            }
+            else {
+                GravityManager.getSpatialIndex().markNudged();
+            }
+
+            activeCount = 0;
+            for (int i = 0; i < n; i++) {
+                if (now % ticksOf(level[i]) == 0) {
+                    active[activeCount++] = i;
+                }
+            }
+            evaluateActive();
+
+            for (int k = 0; k < activeCount; k++) {
+                int i = active[k];
+                double span = ticksOf(level[i]) * tick;
+                double newX = store.ax[i];
+                double newY = store.ay[i];
+                double jerk = Math.hypot(newX - gravityX[i], newY - gravityY[i]) / span;
+                gravityX[i] = newX;
+                gravityY[i] = newY;
+                kick(i, span / 2);
+
+                int newLevel = chooseLevel(i, dt, Math.hypot(newX, newY), jerk);
+                newLevel = limitLevel(level[i], newLevel, now);
+                levelCount[level[i]]--;
+                levelCount[newLevel]++;
+                level[i] = newLevel;
+                if (now < ticksPerFrame) {
+                    kick(i, ticksOf(newLevel) * tick / 2);
+                }
+            }
+        }
+
+        for (int i = 0; i < n; i++) {
+            store.oldX[i] = store.x[i] - vx[i] * dt;
+            store.oldY[i] = store.y[i] - vy[i] * dt;
+            store.lastAx[i] = gravityX[i] + externalX[i];
+            store.lastAy[i] = gravityY[i] + externalY[i];
+            store.ax[i] = 0;
+            store.ay[i] = 0;
+        }
+        lastDt = dt;
+        if (auto != null) {
+            auto.record(gravityNanos - gravityStart);
+        }
+        stepNanos += System.nanoTime() - start;
+    }
+
+
+    // Gravity for the active bodies into their ax / ay slots.
+    // The other bodies' slots are scratch until the end of the frame
+    private void evaluateActive() {
+        long start = System.nanoTime();
+        if (subsets) {
+            for (int k = 0; k < activeCount; k++) {
+                store.ax[active[k]] = 0;
+                store.ay[active[k]] = 0;
+            }
+            if (gravity == GravityEngine.BARNES_HUT) {
+                GravityManager.computeForcesWithQuadTree(store, active, activeCount);
+            }
+            else {
+                GravityManager.computeForcesBruteForce(store, active, activeCount);
+            }
+            forceEvaluations += activeCount;
+        }
+        else {
+            Arrays.fill(store.ax, 0, count, 0);
+            Arrays.fill(store.ay, 0, count, 0);
+            gravity.computeForces(store);
+            forceEvaluations += count;
+        }
+        gravityNanos += System.nanoTime() - start;
+    }
+
+
+    private int chooseLevel(int i, float dt, double acceleration, double jerk) {
+        if (!subsets) {
+            return 0;
+        }
+        double wanted;
+        if (jerk > 0) {
+            wanted = eta * acceleration / jerk;
+        }
+        else if (acceleration > 0) {
+            wanted = eta * Math.sqrt(store.radius[i] / acceleration);
+        }
+        else {
+            return 0;
+        }
+        int l = 0;
+        double stepLength = dt;
+        while (l < maxLevel && stepLength > wanted) {
+            stepLength /= 2;
+            l++;
+        }
+        return l;
+    }
+
+
+    // Finer is always allowed, coarser by one level and only on that level's tick grid
+    private int limitLevel(int current, int wanted, int now) {
+        if (wanted >= current) {
+            return wanted;
+        }
+        int coarser = current - 1;
+        return now % ticksOf(coarser) == 0 ? coarser : current;
+    }
+
+
+    private void kick(int i, double time) {
+        vx[i] += (gravityX[i] + externalX[i]) * time;
+        vy[i] += (gravityY[i] + externalY[i]) * time;
+    }
+
+
+    private void drift(int n, double time) {
+        for (int i = 0; i < n; i++) {
+            store.x[i] += vx[i] * time;
+            store.y[i] += vy[i] * time;
+        }
+    }
+
+
+    private int ticksOf(int l) {
+        return ticksPerFrame >> l;
+    }
+
+
+    private int finestLevel() {
+        for (int l = maxLevel; l > 0; l--) {
+            if (levelCount[l] > 0) {
+                return l;
+            }
+        }
+        return 0;
+    }
+
+
+    private void reset(ParticleStore store) {
+        this.store = store;
+        count = store.size();
+        lastDt = 0;
+        int capacity = store.capacity();
+        if (vx.length < capacity) {
+            vx = new double[capacity];
+            vy = new double[capacity];
+            gravityX = new double[capacity];
+            gravityY = new double[capacity];
+            externalX = new double[capacity];
+            externalY = new double[capacity];
+            level = new int[capacity];
+            evaluated = new boolean[capacity];
+            active = new int[capacity];
+        }
+        Arrays.fill(level, 0);
+        Arrays.fill(evaluated, false);
+    }
+
+
+    // Bodies currently on level l, i.e. stepping dt / 2^l
+    public int getLevelCount(int l) {
+        return levelCount[l];
+    }
+
+    public int getMaxLevel() {
+        return maxLevel;
+    }
+
+    public long getForceEvaluations() {
+        return forceEvaluations;
+    }
+
+    // Average force updates per body per frame, 2^maxLevel if everyone ran at the finest level
+    public double getEvaluationsPerBody() {
+        return frames == 0 || count == 0 ? 0 : (double) forceEvaluations / frames / count;
+    }
+
+    public long getFrames() {
+        return frames;
+    }
+
+    // Wall clock time spent in step() so far
+    public long getStepNanos() {
+        return stepNanos;
+    }
+
+    // The part of getStepNanos() spent evaluating gravity, tree builds included
+    public long getGravityNanos() {
+        return gravityNanos;
+    }
+
+    public void resetStats() {
+        forceEvaluations = 0;
+        frames = 0;
+        stepNanos = 0;
+        gravityNanos = 0;
+    }
+}
@@ -0,0 +1,83 @@
+package nbody.PhysicsEngine;
+
+// The fixed broadphase / resolution paths CollisionManager provides
+public enum CollisionEngine implements CollisionSolver {
+    BRUTE_FORCE("Brute Force") {
+        @Override
+        public void solveCollisions(CollisionManager manager) {
+            manager.BruteForceSolve();
+        }
+    },
+    QUAD_TREE("Quad Tree") {
+        @Override
+        public void solveCollisions(CollisionManager manager) {
+            manager.quadTreeCollision();
+        }
+    },
+    SPATIAL_HASH("Spatial Hash") {
+        @Override
+        public void solveCollisions(CollisionManager manager) {
+            manager.SpatialHashCollision();
+        }
+    },
+    SWEEP_AND_PRUNE("Sweep and Prune") {
+        @Override
+        public void solveCollisions(CollisionManager manager) {
+            manager.sweepAndPruneCollision();
+        }
+    },
+    NEIGHBOR_LIST("Neighbor List") {
+        @Override
+        public void solveCollisions(CollisionManager manager) {
+            manager.neighborListCollision();
+        }
+    },
+    PARALLEL_GRID("Parallel Grid") {
+        @Override
+        public void solveCollisions(CollisionManager manager) {
+            manager.parallelGridCollision();
+        }
+    },
+    JACOBI("Jacobi") {
+        @Override
+        public void solveCollisions(CollisionManager manager) {
+            manager.jacobiCollision();
+        }
+    };
+
+    public static final String AUTO = "Auto";
+
+    private final String name;
+
+    CollisionEngine(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+
+    // "Auto" or one of the engine names, as listed by names()
+    public static CollisionSolver byName(String name) {
+        if (AUTO.equals(name)) {
+            return new AutoCollisionSolver();
+        }
+        for (CollisionEngine engine : values()) {
+            if (engine.name.equals(name)) {
+                return engine;
+            }
+        }
+        throw new IllegalArgumentException("Unknown collision engine: " + name);
+    }
+
+    public static String[] names() {
+        String[] names = new String[values().length + 1];
+        names[0] = AUTO;
+        for (CollisionEngine engine : values()) {
+            names[engine.ordinal() + 1] = engine.name;
+        }
+        return names;
+    }
+}
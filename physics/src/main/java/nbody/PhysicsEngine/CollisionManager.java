@@ -0,0 +1,155 @@
+package nbody.PhysicsEngine;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Vector;
+
+public class CollisionManager {
+    float friction;
+    float gravity;
+    Vector<Integer> Boundaries = new Vector<>(Arrays.asList(0,0,0,0));
+    List<VerletObject> m_objects;
+    ParticleStore store;
+    private final SpatialHashing spatialHash = new SpatialHashing();
+    private final SweepAndPrune sweepAndPrune = new SweepAndPrune();
+    private final NeighborList neighborList = new NeighborList();
+    private SpatialIndex spatialIndex = new SpatialIndex(new QuadTree());
+    private boolean moved;    // set by any correction in the current pass
+    private final QuadTree.PairCallback resolver = this::handleCollision;
+    private CollisionSolver solver = CollisionEngine.QUAD_TREE;
+    private final JacobiContactSolver jacobi = new JacobiContactSolver();
+    private int jacobiIterations = 4;
+
+    public CollisionManager(float f, float g, VerletSystemManger system) {   
+        m_objects = system.getObjects();
+        store = system.getStore();
+        friction = f;
+        gravity = g;
+    }
+
+    public CollisionManager(VerletSystemManger system) {   
+        m_objects = system.getObjects();
+        store = system.getStore();
+    }
+
+
+    public void SpatialHashCollision()
+    {
+        // Rebuild the grid in place
+        spatialHash.build(store);
+        spatialHash.processCollisions(resolver);
+    }
+
+    // Grid pass resolved on GravityManager's worker pool, see SpatialHashing
+    public void parallelGridCollision() {
+        spatialHash.build(store);
+        spatialHash.processCollisionsParallel(resolver);
+    }
+
+    // Keeps the bodies sorted along x between steps, see SweepAndPrune
+    public void sweepAndPruneCollision() {
+        sweepAndPrune.update(store);
+        sweepAndPrune.processCollisions(resolver);
+    }
+
+    // Reuses the pair lists across substeps until a body moves half the skin, see NeighborList
+    public void neighborListCollision() {
+        neighborList.update(store);
+        neighborList.processCollisions(resolver);
+    }
+
+    public NeighborList getNeighborList() {
+        return neighborList;
+    }
+
+    // Order independent alternative to the in place passes, see JacobiContactSolver
+    public void jacobiCollision() {
+        jacobi.solve(store, spatialHash, jacobiIterations);
+        moved |= jacobi.getPairCount() > 0;
+    }
+
+    public void setJacobiIterations(int iterations) {
+        jacobiIterations = Math.max(1, iterations);
+    }
+
+    public void setSpatialTree(SpatialTree tree) {
+        spatialIndex.setTree(tree);
+    }
+
+    // Share one per step tree with the gravity phase, e.g. GravityManager.getSpatialIndex()
+    public void setSpatialIndex(SpatialIndex index) {
+        spatialIndex = index;
+    }
+
+    public void setSolver(CollisionSolver solver) {
+        this.solver = solver;
+    }
+
+    public CollisionSolver getSolver() {
+        return solver;
+    }
+
+    // One collision pass with whichever engine is selected
+    public void solve() {
+        moved = false;
+        solver.solveCollisions(this);
+        if (moved) {
+            spatialIndex.markNudged();
+        }
+    }
+
+    public void quadTreeCollision() {
+        // Rebuild the pooled tree in place, unless it is current for this step
+        SpatialTree quadTree = spatialIndex.forCollisions(store);
+
+        // Check collisions
+        for (int i = 0; i < store.size(); i++) {
+            quadTree.findPotentialCollisions(i, resolver);
+        }
+    }
+
+
+
+    public void BruteForceSolve() {        
+        int objects_count = store.size();
+        
+        for(int i = 0; i < objects_count; i++) {
+            for(int j = i + 1; j < objects_count; j++) {
+                handleCollision(i, j);
+            }
+        }
+    }
+
+    
+    
+    // Pushes bodies i and j apart if they overlap, straight on the store arrays
+    private void handleCollision(int i, int j) {
+        float response_coef = 0.75f;
+        double[] x = store.x;
+        double[] y = store.y;
+        float radius1 = store.radius[i];
+        float radius2 = store.radius[j];
+
+        double dx = x[i] - x[j];
+        double dy = y[i] - y[j];
+        double distSquared = dx * dx + dy * dy;
+        float minDist = radius1 + radius2;
+
+        if (distSquared < minDist * minDist) {
+            moved = true;
+            double dist = Math.sqrt(distSquared);
+            double nx = dx / dist;
+            double ny = dy / dist;
+
+            float massRatio1 = radius1 / (radius1 + radius2);
+            float massRatio2 = radius2 / (radius1 + radius2);
+            float delta = 0.5f * response_coef * ((float) dist - minDist);
+
+            x[i] -= nx * (massRatio2 * delta);
+            y[i] -= ny * (massRatio2 * delta);
+            x[j] += nx * (massRatio1 * delta);
+            y[j] += ny * (massRatio1 * delta);
+        }
+    }
+
+
+}
@@ -0,0 +1,9 @@
+package nbody.PhysicsEngine;
+
+// A way of pushing apart the overlapping bodies of a CollisionManager's system
+public interface CollisionSolver {
+
+    String getName();
+
+    void solveCollisions(CollisionManager manager);
+}
@@ -0,0 +1,416 @@
+package nbody.PhysicsEngine;
+
+import java.util.Arrays;
+
+// Fast Multipole Method gravity, O(N) per step.
+//
+// The bodies are bucketed into the leaves of a full quadtree over their
+// bounding square (the same halving hierarchy QuadTree uses, just every
+// level complete so cells are addressed by (level, x, y) instead of pointers).
+// Every cell carries a multipole expansion of the masses inside it and a
+// local expansion of the field from far away cells:
+//   P2M  leaf masses -> leaf multipoles
+//   M2M  child multipoles -> parent multipoles, bottom up
+//   M2L  multipoles of well separated cells -> locals, every level
+//   L2L  parent locals -> child locals, top down
+//   L2P  leaf locals -> body accelerations, plus direct sums with the 3x3 neighbor leaves
+//
+// The simulation's force is G m1 m2 / r^2 in the plane, which is the gradient
+// of the 1/r potential and not of the 2D log potential, so the usual complex
+// z^k expansions do not apply. The expansions here are Cartesian Taylor series
+// of 1/r in (dx, dy) up to the configured order, with the derivative table
+// built by the Lindsay-Krasny recurrence.
+public class FastMultipole {
+    public static final int DEFAULT_ORDER = 6;
+    public static final int DEFAULT_LEAF_SIZE = 32;
+    private static final int MIN_LEVEL = 2;
+    private static final int MAX_LEVEL = 8;
+
+    private final int expansionOrder;     // p, terms with k1 + k2 <= p are kept
+    private final int leafSize;           // target bodies per leaf, picks the depth
+    private final int stride;             // p + 1, coefficient (k1, k2) sits at k1 * stride + k2
+    private final int terms;              // stride * stride
+    private final double[][] binomial;
+
+    private ParticleStore store;
+    private int levels;
+    private int[] levelOffset = new int[MAX_LEVEL + 2];
+    private double rootX, rootY, rootSize;
+
+    // Expansions, cell c's coefficients start at c * terms
+    private double[] multipole = new double[0];
+    private double[] local = new double[0];
+
+    // Bodies sorted by leaf (row major), leaf c holds [leafStart[c], leafStart[c + 1])
+    private int[] leafStart = new int[0];
+    private int[] leafOf = new int[0];
+    private int[] sortedIndex = new int[0];
+    private double[] sortedX = new double[0];
+    private double[] sortedY = new double[0];
+    private double[] sortedMass = new double[0];
+
+    private final ThreadLocal<Scratch> scratch;
+
+
+    public FastMultipole() {
+        this(DEFAULT_ORDER, DEFAULT_LEAF_SIZE);
+    }
+
+    public FastMultipole(int expansionOrder, int leafSize) {
+        if (expansionOrder < 1 || leafSize < 1) {
+            throw new IllegalArgumentException("Expansion order and leaf size must be >= 1");
+        }
+        this.expansionOrder = expansionOrder;
+        this.leafSize = leafSize;
+        this.stride = expansionOrder + 1;
+        this.terms = stride * stride;
+
+        binomial = new double[2 * expansionOrder + 1][2 * expansionOrder + 1];
+        for (int a = 0; a <= 2 * expansionOrder; a++) {
+            binomial[a][0] = 1;
+            for (int b = 1; b <= a; b++) {
+                binomial[a][b] = binomial[a - 1][b - 1] + (b <= a - 1 ? binomial[a - 1][b] : 0);
+            }
+        }
+        scratch = ThreadLocal.withInitial(() -> new Scratch(expansionOrder));
+    }
+
+
+    // Per thread work arrays: the 1/r derivative table up to order 2p and coordinate powers
+    private static class Scratch {
+        final int tableStride;
+        final double[] derivatives;
+        final double[] powX;
+        final double[] powY;
+
+        Scratch(int p) {
+            tableStride = 2 * p + 1;
+            derivatives = new double[tableStride * tableStride];
+            powX = new double[tableStride];
+            powY = new double[tableStride];
+        }
+    }
+
+
+    public int getExpansionOrder() {
+        return expansionOrder;
+    }
+
+
+    public void computeForces(ParticleStore store) {
+        this.store = store;
+        int n = store.size();
+        if (n < 2) {
+            return;
+        }
+
+        fitRoot();
+        levels = Math.max(MIN_LEVEL, Math.min(MAX_LEVEL,
+                (int) Math.ceil(Math.log((double) n / leafSize) / Math.log(4))));
+        int cells = 0;
+        for (int l = 0; l <= levels; l++) {
+            levelOffset[l] = cells;
+            cells += 1 << (2 * l);
+        }
+        levelOffset[levels + 1] = cells;
+        ensureCapacity(n, cells);
+
+        bucketBodies();
+
+        int side = 1 << levels;
+        Parallel.forRange(0, side * side, 64, this::particleToMultipole);
+        for (int l = levels - 1; l >= MIN_LEVEL; l--) {
+            final int level = l;
+            Parallel.forRange(0, 1 << (2 * l), 64, (from, to) -> multipoleToMultipole(level, from, to));
+        }
+        for (int l = MIN_LEVEL; l <= levels; l++) {
+            final int level = l;
+            Parallel.forRange(0, 1 << (2 * l), 16, (from, to) -> multipoleToLocal(level, from, to));
+        }
+        Parallel.forRange(0, side * side, 16, this::evaluateLeaves);
+    }
+
+
+    private void fitRoot() {
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < store.size(); i++) {
+            minX = Math.min(minX, store.x[i]);
+            minY = Math.min(minY, store.y[i]);
+            maxX = Math.max(maxX, store.x[i]);
+            maxY = Math.max(maxY, store.y[i]);
+        }
+        rootX = minX;
+        rootY = minY;
+        rootSize = Math.max(Math.max(maxX - minX, maxY - minY), 1e-9) * 1.0001;
+    }
+
+
+    private void ensureCapacity(int n, int cells) {
+        if (multipole.length < cells * terms) {
+            multipole = new double[cells * terms];
+            local = new double[cells * terms];
+        }
+        int leaves = 1 << (2 * levels);
+        if (leafStart.length < leaves + 1) {
+            leafStart = new int[leaves + 1];
+        }
+        if (sortedIndex.length < n) {
+            int capacity = store.capacity();
+            leafOf = new int[capacity];
+            sortedIndex = new int[capacity];
+            sortedX = new double[capacity];
+            sortedY = new double[capacity];
+            sortedMass = new double[capacity];
+        }
+    }
+
+
+    // Counting sort of the bodies by leaf, leaves numbered row major
+    private void bucketBodies() {
+        int n = store.size();
+        int side = 1 << levels;
+        int leaves = side * side;
+        double scale = side / rootSize;
+
+        Arrays.fill(leafStart, 0, leaves + 1, 0);
+        for (int i = 0; i < n; i++) {
+            int ix = Math.min(side - 1, (int) ((store.x[i] - rootX) * scale));
+            int iy = Math.min(side - 1, (int) ((store.y[i] - rootY) * scale));
+            leafOf[i] = iy * side + ix;
+            leafStart[leafOf[i] + 1]++;
+        }
+        for (int c = 0; c < leaves; c++) {
+            leafStart[c + 1] += leafStart[c];
+        }
+        for (int i = 0; i < n; i++) {
+            // leafStart[c] is used as the fill cursor, then shifted back below
+            int k = leafStart[leafOf[i]]++;
+            sortedIndex[k] = i;
+            sortedX[k] = store.x[i];
+            sortedY[k] = store.y[i];
+            sortedMass[k] = store.mass[i];
+        }
+        for (int c = leaves; c > 0; c--) {
+            leafStart[c] = leafStart[c - 1];
+        }
+        leafStart[0] = 0;
+    }
+
+
+    private double cellCenterX(int level, int ix) {
+        return rootX + (ix + 0.5) * rootSize / (1 << level);
+    }
+
+    private double cellCenterY(int level, int iy) {
+        return rootY + (iy + 0.5) * rootSize / (1 << level);
+    }
+
+
+    // P2M: moments sum m * dx^k1 * dy^k2 about each leaf center
+    private void particleToMultipole(int from, int to) {
+        Scratch s = scratch.get();
+        int side = 1 << levels;
+        for (int c = from; c < to; c++) {
+            int base = (levelOffset[levels] + c) * terms;
+            Arrays.fill(multipole, base, base + terms, 0);
+            double cx = cellCenterX(levels, c % side);
+            double cy = cellCenterY(levels, c / side);
+
+            for (int k = leafStart[c]; k < leafStart[c + 1]; k++) {
+                powers(sortedX[k] - cx, sortedY[k] - cy, expansionOrder, s);
+                double m = sortedMass[k];
+                for (int k1 = 0; k1 <= expansionOrder; k1++) {
+                    for (int k2 = 0; k1 + k2 <= expansionOrder; k2++) {
+                        multipole[base + k1 * stride + k2] += m * s.powX[k1] * s.powY[k2];
+                    }
+                }
+            }
+        }
+    }
+
+
+    // M2M: shifts the four children's moments to the parent center and adds them
+    private void multipoleToMultipole(int level, int from, int to) {
+        Scratch s = scratch.get();
+        int side = 1 << level;
+        for (int c = from; c < to; c++) {
+            int ix = c % side;
+            int iy = c / side;
+            int base = (levelOffset[level] + c) * terms;
+            Arrays.fill(multipole, base, base + terms, 0);
+
+            for (int child = 0; child < 4; child++) {
+                int cix = 2 * ix + (child & 1);
+                int ciy = 2 * iy + (child >> 1);
+                int childBase = (levelOffset[level + 1] + ciy * 2 * side + cix) * terms;
+                if (multipole[childBase] == 0) continue;  // no mass in the child
+
+                powers(cellCenterX(level + 1, cix) - cellCenterX(level, ix),
+                       cellCenterY(level + 1, ciy) - cellCenterY(level, iy), expansionOrder, s);
+                for (int k1 = 0; k1 <= expansionOrder; k1++) {
+                    for (int k2 = 0; k1 + k2 <= expansionOrder; k2++) {
+                        double sum = 0;
+                        for (int l1 = 0; l1 <= k1; l1++) {
+                            for (int l2 = 0; l2 <= k2; l2++) {
+                                sum += binomial[k1][l1] * binomial[k2][l2]
+                                        * multipole[childBase + l1 * stride + l2]
+                                        * s.powX[k1 - l1] * s.powY[k2 - l2];
+                            }
+                        }
+                        multipole[base + k1 * stride + k2] += sum;
+                    }
+                }
+            }
+        }
+    }
+
+
+    // L2L from the parent, then M2L from every cell that is a child of the
+    // parent's neighbors but not a neighbor itself
+    private void multipoleToLocal(int level, int from, int to) {
+        Scratch s = scratch.get();
+        int side = 1 << level;
+        for (int c = from; c < to; c++) {
+            int ix = c % side;
+            int iy = c / side;
+            int base = (levelOffset[level] + c) * terms;
+            double cx = cellCenterX(level, ix);
+            double cy = cellCenterY(level, iy);
+
+            if (level == MIN_LEVEL) {
+                Arrays.fill(local, base, base + terms, 0);
+            }
+            else {
+                localToLocal(level, ix, iy, base, s);
+            }
+
+            int px = ix >> 1;
+            int py = iy >> 1;
+            int parentSide = side >> 1;
+            for (int ny = Math.max(0, py - 1); ny <= Math.min(parentSide - 1, py + 1); ny++) {
+                for (int nx = Math.max(0, px - 1); nx <= Math.min(parentSide - 1, px + 1); nx++) {
+                    for (int child = 0; child < 4; child++) {
+                        int sx = 2 * nx + (child & 1);
+                        int sy = 2 * ny + (child >> 1);
+                        if (Math.abs(sx - ix) <= 1 && Math.abs(sy - iy) <= 1) continue;
+
+                        int sourceBase = (levelOffset[level] + sy * side + sx) * terms;
+                        if (multipole[sourceBase] == 0) continue;
+
+                        translate(cx - cellCenterX(level, sx), cy - cellCenterY(level, sy), sourceBase, base, s);
+                    }
+                }
+            }
+        }
+    }
+
+
+    // M2L: L_n += (-1)^|n| * sum_k C(n + k, k) * M_k * a_(n + k)(R), R = target center - source center
+    private void translate(double rx, double ry, int sourceBase, int targetBase, Scratch s) {
+        int q = 2 * expansionOrder;
+        int ts = s.tableStride;
+        double[] a = s.derivatives;
+
+        // Lindsay-Krasny recurrence for a_k = (-D)^k (1/r) / k!
+        double r2 = rx * rx + ry * ry;
+        a[0] = 1 / Math.sqrt(r2);
+        for (int t = 1; t <= q; t++) {
+            for (int k1 = 0; k1 <= t; k1++) {
+                int k2 = t - k1;
+                double first = (k1 > 0 ? rx * a[(k1 - 1) * ts + k2] : 0)
+                             + (k2 > 0 ? ry * a[k1 * ts + k2 - 1] : 0);
+                double second = (k1 > 1 ? a[(k1 - 2) * ts + k2] : 0)
+                              + (k2 > 1 ? a[k1 * ts + k2 - 2] : 0);
+                a[k1 * ts + k2] = ((2 * t - 1) * first - (t - 1) * second) / (t * r2);
+            }
+        }
+
+        for (int n1 = 0; n1 <= expansionOrder; n1++) {
+            for (int n2 = 0; n1 + n2 <= expansionOrder; n2++) {
+                double sum = 0;
+                for (int k1 = 0; k1 <= expansionOrder; k1++) {
+                    for (int k2 = 0; k1 + k2 <= expansionOrder; k2++) {
+                        sum += binomial[n1 + k1][k1] * binomial[n2 + k2][k2]
+                                * multipole[sourceBase + k1 * stride + k2]
+                                * a[(n1 + k1) * ts + n2 + k2];
+                    }
+                }
+                local[targetBase + n1 * stride + n2] += ((n1 + n2) % 2 == 0) ? sum : -sum;
+            }
+        }
+    }
+
+
+    // L2L: re-centers the parent's local expansion on this cell
+    private void localToLocal(int level, int ix, int iy, int base, Scratch s) {
+        int parentBase = (levelOffset[level - 1] + (iy >> 1) * (1 << (level - 1)) + (ix >> 1)) * terms;
+        powers(cellCenterX(level, ix) - cellCenterX(level - 1, ix >> 1),
+               cellCenterY(level, iy) - cellCenterY(level - 1, iy >> 1), expansionOrder, s);
+
+        for (int m1 = 0; m1 <= expansionOrder; m1++) {
+            for (int m2 = 0; m1 + m2 <= expansionOrder; m2++) {
+                double sum = 0;
+                for (int n1 = m1; n1 <= expansionOrder; n1++) {
+                    for (int n2 = m2; n1 + n2 <= expansionOrder; n2++) {
+                        sum += binomial[n1][m1] * binomial[n2][m2]
+                                * local[parentBase + n1 * stride + n2]
+                                * s.powX[n1 - m1] * s.powY[n2 - m2];
+                    }
+                }
+                local[base + m1 * stride + m2] = sum;
+            }
+        }
+    }
+
+
+    // L2P gradient plus direct sums over the 3x3 block of neighbor leaves
+    private void evaluateLeaves(int from, int to) {
+        Scratch s = scratch.get();
+        int side = 1 << levels;
+        for (int c = from; c < to; c++) {
+            if (leafStart[c] == leafStart[c + 1]) continue;
+
+            int ix = c % side;
+            int iy = c / side;
+            int base = (levelOffset[levels] + c) * terms;
+            double cx = cellCenterX(levels, ix);
+            double cy = cellCenterY(levels, iy);
+
+            for (int k = leafStart[c]; k < leafStart[c + 1]; k++) {
+                int i = sortedIndex[k];
+                powers(sortedX[k] - cx, sortedY[k] - cy, expansionOrder, s);
+
+                double gx = 0;
+                double gy = 0;
+                for (int n1 = 0; n1 <= expansionOrder; n1++) {
+                    for (int n2 = 0; n1 + n2 <= expansionOrder; n2++) {
+                        double coefficient = local[base + n1 * stride + n2];
+                        if (n1 > 0) gx += n1 * coefficient * s.powX[n1 - 1] * s.powY[n2];
+                        if (n2 > 0) gy += n2 * coefficient * s.powX[n1] * s.powY[n2 - 1];
+                    }
+                }
+                store.ax[i] += GravityManager.G * gx;
+                store.ay[i] += GravityManager.G * gy;
+
+                // Rows of neighbor leaves are contiguous in the sorted arrays
+                for (int ny = Math.max(0, iy - 1); ny <= Math.min(side - 1, iy + 1); ny++) {
+                    int first = leafStart[ny * side + Math.max(0, ix - 1)];
+                    int last = leafStart[ny * side + Math.min(side - 1, ix + 1) + 1];
+                    GravityKernel.accumulate(sortedX[k], sortedY[k], sortedX, sortedY, sortedMass, first, last,
+                            store.ax, store.ay, i);
+                }
+            }
+        }
+    }
+
+
+    private static void powers(double dx, double dy, int upTo, Scratch s) {
+        s.powX[0] = 1;
+        s.powY[0] = 1;
+        for (int j = 1; j <= upTo; j++) {
+            s.powX[j] = s.powX[j - 1] * dx;
+            s.powY[j] = s.powY[j - 1] * dy;
+        }
+    }
+}
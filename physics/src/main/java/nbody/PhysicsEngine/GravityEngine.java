@@ -0,0 +1,65 @@
+package nbody.PhysicsEngine;
+
+// The fixed gravity engines GravityManager provides
+public enum GravityEngine implements GravitySolver {
+    BRUTE_FORCE("Brute Force") {
+        @Override
+        public void computeForces(ParticleStore store) {
+            GravityManager.computeForcesBruteForce(store);
+        }
+    },
+    BARNES_HUT("Barnes-Hut") {
+        @Override
+        public void computeForces(ParticleStore store) {
+            GravityManager.computeForcesWithQuadTree(store);
+        }
+    },
+    FAST_MULTIPOLE("Fast Multipole") {
+        @Override
+        public void computeForces(ParticleStore store) {
+            GravityManager.computeForcesWithFMM(store);
+        }
+    },
+    PARTICLE_MESH("Particle Mesh") {
+        @Override
+        public void computeForces(ParticleStore store) {
+            GravityManager.computeForcesWithParticleMesh(store);
+        }
+    };
+
+    public static final String AUTO = "Auto";
+
+    private final String name;
+
+    GravityEngine(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+
+    // "Auto" or one of the engine names, as listed by names()
+    public static GravitySolver byName(String name) {
+        if (AUTO.equals(name)) {
+            return new AutoGravitySolver();
+        }
+        for (GravityEngine engine : values()) {
+            if (engine.name.equals(name)) {
+                return engine;
+            }
+        }
+        throw new IllegalArgumentException("Unknown gravity engine: " + name);
+    }
+
+    public static String[] names() {
+        String[] names = new String[values().length + 1];
+        names[0] = AUTO;
+        for (GravityEngine engine : values()) {
+            names[engine.ordinal() + 1] = engine.name;
+        }
+        return names;
+    }
+}
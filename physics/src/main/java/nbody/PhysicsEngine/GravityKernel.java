@@ -0,0 +1,129 @@
+package nbody.PhysicsEngine;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+// Pairwise gravity over primitive source arrays, used by the direct sum and
+// by the Barnes-Hut interaction lists. Uses the JDK Vector API when the
+// machine has at least 4 double lanes (AVX2 / AVX-512), plain loops otherwise.
+final class GravityKernel {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    // Picked once at startup, -Dnbody.scalarKernel=true forces the scalar loop
+    static final boolean VECTORIZED = SPECIES.length() >= 4 && !Boolean.getBoolean("nbody.scalarKernel");
+
+    private GravityKernel() {
+    }
+
+
+    // Adds the pull of sources [from, to) on the point (px, py) into accX[out] / accY[out].
+    // Sources sitting exactly on the point (the body itself) are skipped
+    static void accumulate(double px, double py, double[] sx, double[] sy, double[] sm, int from, int to,
+                           double[] accX, double[] accY, int out) {
+        double axi = 0;
+        double ayi = 0;
+        int j = from;
+
+        if (VECTORIZED) {
+            DoubleVector vx = DoubleVector.broadcast(SPECIES, px);
+            DoubleVector vy = DoubleVector.broadcast(SPECIES, py);
+            DoubleVector sumX = DoubleVector.zero(SPECIES);
+            DoubleVector sumY = DoubleVector.zero(SPECIES);
+            int upper = from + SPECIES.loopBound(to - from);
+
+            for (; j < upper; j += SPECIES.length()) {
+                DoubleVector dx = DoubleVector.fromArray(SPECIES, sx, j).sub(vx);
+                DoubleVector dy = DoubleVector.fromArray(SPECIES, sy, j).sub(vy);
+                DoubleVector r2 = dx.mul(dx).add(dy.mul(dy));
+                VectorMask<Double> other = r2.compare(VectorOperators.GT, 0);
+
+                // m / r^3, zeroed for the body itself
+                DoubleVector s = DoubleVector.fromArray(SPECIES, sm, j)
+                        .div(r2.mul(r2.lanewise(VectorOperators.SQRT)))
+                        .blend(0, other.not());
+
+                sumX = dx.fma(s, sumX);
+                sumY = dy.fma(s, sumY);
+            }
+            axi = sumX.reduceLanes(VectorOperators.ADD);
+            ayi = sumY.reduceLanes(VectorOperators.ADD);
+        }
+
+        // Scalar loop, also picks up the tail the vectors did not cover
+        for (; j < to; j++) {
+            double dx = sx[j] - px;
+            double dy = sy[j] - py;
+            double r2 = dx * dx + dy * dy;
+            if (r2 == 0) continue;
+
+            double s = sm[j] / (r2 * Math.sqrt(r2));
+            axi += dx * s;
+            ayi += dy * s;
+        }
+
+        accX[out] += GravityManager.G * axi;
+        accY[out] += GravityManager.G * ayi;
+    }
+
+
+    // Newton's third law version for the symmetric direct sum: body (px, py, pm)
+    // against sources [from, to), adding its own pull into accX[out] / accY[out]
+    // and the equal and opposite pull into each source's slot. out must not lie
+    // in [from, to). Coincident pairs are skipped
+    static void accumulateSymmetric(double px, double py, double pm, double[] sx, double[] sy, double[] sm,
+                                    int from, int to, double[] accX, double[] accY, int out) {
+        double axi = 0;
+        double ayi = 0;
+        double gm = GravityManager.G * pm;
+        int j = from;
+
+        if (VECTORIZED) {
+            DoubleVector vx = DoubleVector.broadcast(SPECIES, px);
+            DoubleVector vy = DoubleVector.broadcast(SPECIES, py);
+            DoubleVector one = DoubleVector.broadcast(SPECIES, 1.0);
+            DoubleVector sumX = DoubleVector.zero(SPECIES);
+            DoubleVector sumY = DoubleVector.zero(SPECIES);
+            int upper = from + SPECIES.loopBound(to - from);
+
+            for (; j < upper; j += SPECIES.length()) {
+                DoubleVector dx = DoubleVector.fromArray(SPECIES, sx, j).sub(vx);
+                DoubleVector dy = DoubleVector.fromArray(SPECIES, sy, j).sub(vy);
+                DoubleVector r2 = dx.mul(dx).add(dy.mul(dy));
+                VectorMask<Double> other = r2.compare(VectorOperators.GT, 0);
+
+                // 1 / r^3, zeroed for coincident pairs
+                DoubleVector s = one.div(r2.mul(r2.lanewise(VectorOperators.SQRT)))
+                        .blend(0, other.not());
+                DoubleVector sj = s.mul(DoubleVector.fromArray(SPECIES, sm, j));
+                sumX = dx.fma(sj, sumX);
+                sumY = dy.fma(sj, sumY);
+
+                // Reaction on the sources, written straight back into their slots
+                DoubleVector si = s.mul(-gm);
+                dx.fma(si, DoubleVector.fromArray(SPECIES, accX, j)).intoArray(accX, j);
+                dy.fma(si, DoubleVector.fromArray(SPECIES, accY, j)).intoArray(accY, j);
+            }
+            axi = sumX.reduceLanes(VectorOperators.ADD);
+            ayi = sumY.reduceLanes(VectorOperators.ADD);
+        }
+
+        // Scalar loop, also picks up the tail the vectors did not cover
+        for (; j < to; j++) {
+            double dx = sx[j] - px;
+            double dy = sy[j] - py;
+            double r2 = dx * dx + dy * dy;
+            if (r2 == 0) continue;
+
+            double s = 1 / (r2 * Math.sqrt(r2));
+            axi += dx * s * sm[j];
+            ayi += dy * s * sm[j];
+            accX[j] -= dx * s * gm;
+            accY[j] -= dy * s * gm;
+        }
+
+        accX[out] += GravityManager.G * axi;
+        accY[out] += GravityManager.G * ayi;
+    }
+}
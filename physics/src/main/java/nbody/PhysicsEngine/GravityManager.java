@@ -0,0 +1,326 @@
+package nbody.PhysicsEngine;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+public class GravityManager {
+
+    static final double G = 6.67343e-11;
+    private static final double thetaThreshold = .5;
+
+    // Reused every frame so the tree pool only grows, never reallocates per call.
+    // Shared with CollisionManager when both phases should use the same build
+    private static final SpatialIndex spatialIndex = new SpatialIndex(new QuadTree());
+
+    // Fast Multipole solver, rebuilt when the expansion order changes
+    private static FastMultipole fastMultipole = new FastMultipole();
+
+    // Particle-mesh solver, rebuilt when the grid size changes
+    private static ParticleMesh particleMesh;
+
+    // Bodies per fork join leaf task
+    private static final int PARALLEL_GRAIN = 256;
+
+    // Bodies per tile edge in the direct sum, 2 * 256 bodies of x, y, mass fit in L1/L2
+    private static final int BLOCK = 256;
+
+    // Barnes-Hut interaction list per thread, grown once and then reused
+    private static final ThreadLocal<QuadTree.InteractionList> interactionList =
+            ThreadLocal.withInitial(QuadTree.InteractionList::new);
+
+    // Masses widened to double for GravityKernel
+    private static double[] massScratch = new double[0];
+
+    // Per thread acceleration accumulators for the parallel direct sum
+    private static double[][] accumulatorX;
+    private static double[][] accumulatorY;
+
+    // 1 keeps everything on the calling thread
+    private static int threadCount = 1;
+    private static ForkJoinPool pool;
+
+
+    // Picks how many worker threads the force phase uses, <= 0 means all cores
+    public static synchronized void setThreadCount(int threads) {
+        if (threads <= 0) {
+            threads = Runtime.getRuntime().availableProcessors();
+        }
+        if (threads == threadCount && (threads == 1 || pool != null)) {
+            return;
+        }
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+        threadCount = threads;
+        accumulatorX = null;
+        accumulatorY = null;
+        if (threads > 1) {
+            pool = new ForkJoinPool(threads);
+        }
+    }
+
+    // Higher orders are more accurate and cost roughly order^4 per cell pair
+    public static void setMultipoleOrder(int order) {
+        if (order != fastMultipole.getExpansionOrder()) {
+            fastMultipole = new FastMultipole(order, FastMultipole.DEFAULT_LEAF_SIZE);
+        }
+    }
+
+    // Grid cells per side for the particle-mesh solver, a power of two
+    public static void setMeshSize(int gridSize) {
+        if (particleMesh == null || particleMesh.getGridSize() != gridSize) {
+            particleMesh = new ParticleMesh(gridSize);
+        }
+    }
+
+    // Swaps the Barnes-Hut tree, e.g. for a MortonQuadTree
+    public static void setSpatialTree(SpatialTree tree) {
+        spatialIndex.setTree(tree);
+    }
+
+    public static SpatialIndex getSpatialIndex() {
+        return spatialIndex;
+    }
+
+    public static int getThreadCount() {
+        return threadCount;
+    }
+
+    static ForkJoinPool pool() {
+        return pool;
+    }
+
+    // Method to compute gravitational forces using brute force (pairwise)
+    // The pairs are walked in BLOCK x BLOCK tiles so both blocks stay in cache
+    public static void computeForcesBruteForce(ParticleStore store) {
+        int n = store.size();
+        int blocks = (n + BLOCK - 1) / BLOCK;
+
+        // Masses widened to double once per call for the kernel
+        if (massScratch.length < n) {
+            massScratch = new double[store.capacity()];
+        }
+        for (int i = 0; i < n; i++) {
+            massScratch[i] = store.mass[i];
+        }
+
+        if (pool == null || blocks < 2) {
+            // Single thread: each pair once (Newton's Third Law), straight into the store
+            for (int ib = 0; ib < blocks; ib++) {
+                for (int jb = ib; jb < blocks; jb++) {
+                    interactTile(store, ib, jb, store.ax, store.ay);
+                }
+            }
+            return;
+        }
+
+        // Threads still do every pair once, but write into their own
+        // accumulators which get summed into the store afterwards
+        if (accumulatorX == null || accumulatorX.length != threadCount || accumulatorX[0].length < n) {
+            accumulatorX = new double[threadCount][store.capacity()];
+            accumulatorY = new double[threadCount][store.capacity()];
+        }
+
+        DirectSumTask[] tasks = new DirectSumTask[threadCount];
+        for (int w = 0; w < threadCount; w++) {
+            tasks[w] = new DirectSumTask(store, w, blocks);
+        }
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(tasks);
+            }
+        });
+
+        for (int w = 0; w < threadCount; w++) {
+            double[] accX = accumulatorX[w];
+            double[] accY = accumulatorY[w];
+            for (int i = 0; i < n; i++) {
+                store.ax[i] += accX[i];
+                store.ay[i] += accY[i];
+            }
+        }
+    }
+
+
+    // Direct sum for the listed bodies only, each against every body in the store.
+    // The block timestep integrator uses this for the bodies due a force update
+    static void computeForcesBruteForce(ParticleStore store, int[] bodies, int count) {
+        int n = store.size();
+        if (massScratch.length < n) {
+            massScratch = new double[store.capacity()];
+        }
+        for (int i = 0; i < n; i++) {
+            massScratch[i] = store.mass[i];
+        }
+
+        Parallel.forRange(0, count, PARALLEL_GRAIN, (from, to) -> {
+            for (int jFrom = 0; jFrom < n; jFrom += BLOCK) {
+                int jTo = Math.min(n, jFrom + BLOCK);
+                for (int k = from; k < to; k++) {
+                    int i = bodies[k];
+                    GravityKernel.accumulate(store.x[i], store.y[i], store.x, store.y, massScratch, jFrom, jTo,
+                            store.ax, store.ay, i);
+                }
+            }
+        });
+    }
+
+
+    // Interacts every body of block ib with every body of block jb
+    // (only j > i on the diagonal) and adds both sides into accX / accY.
+    // GravityKernel does the pairs, several per instruction where the CPU allows
+    private static void interactTile(ParticleStore store, int ib, int jb, double[] accX, double[] accY) {
+        double[] x = store.x;
+        double[] y = store.y;
+        int n = store.size();
+        int iEnd = Math.min(n, (ib + 1) * BLOCK);
+        int jEnd = Math.min(n, (jb + 1) * BLOCK);
+
+        for (int i = ib * BLOCK; i < iEnd; i++) {
+            int jFrom = (ib == jb) ? i + 1 : jb * BLOCK;
+            GravityKernel.accumulateSymmetric(x[i], y[i], massScratch[i], x, y, massScratch, jFrom, jEnd,
+                    accX, accY, i);
+        }
+    }
+
+
+    // One worker's share of the upper triangle of tiles. Rows are dealt out
+    // round robin so the long early rows and short late rows even out
+    private static class DirectSumTask extends RecursiveAction {
+        private final ParticleStore store;
+        private final int worker;
+        private final int blocks;
+
+        DirectSumTask(ParticleStore store, int worker, int blocks) {
+            this.store = store;
+            this.worker = worker;
+            this.blocks = blocks;
+        }
+
+        @Override
+        protected void compute() {
+            double[] accX = accumulatorX[worker];
+            double[] accY = accumulatorY[worker];
+            Arrays.fill(accX, 0, store.size(), 0);
+            Arrays.fill(accY, 0, store.size(), 0);
+
+            for (int ib = worker; ib < blocks; ib += threadCount) {
+                for (int jb = ib; jb < blocks; jb++) {
+                    interactTile(store, ib, jb, accX, accY);
+                }
+            }
+        }
+    }
+
+
+    // Gets force as a 2D vector
+    public static Vector2D getVectorForce(VerletObject obj1, VerletObject obj2) {
+        Vector2D pos1 = obj1.getPosition();
+        Vector2D pos2 = obj2.getPosition();
+
+        double distance = pos1.distance(pos2);
+
+        double forceMagnitude = G * obj1.getMass() * obj2.getMass() / (distance * distance);
+        Vector2D direction = pos2.subtract(pos1).normalize();
+
+        return direction.multiply(forceMagnitude);
+    }
+
+
+    // Get magnitude of the force
+    public static double getMagnitudeForce(VerletObject obj1, VerletObject obj2) {
+        double distance = obj1.getPosition().distance(obj2.getPosition());
+        return G * obj1.getMass() * obj2.getMass() / (Math.pow(distance, 2));
+    }
+
+
+    // Same for two bodies of a store, straight from its arrays without any Vector2D
+    public static double getMagnitudeForce(ParticleStore store, int i, int j) {
+        double dx = store.x[j] - store.x[i];
+        double dy = store.y[j] - store.y[i];
+        return G * store.mass[i] * store.mass[j] / (dx * dx + dy * dy);
+    }
+
+
+
+     
+    // Method to compute gravitational forces using QuadTree 
+    public static void computeForcesWithQuadTree(ParticleStore store) {
+        // First, get a tree over the current positions, built this step if
+        // the collision phase has not already done it
+        SpatialTree quadTree = spatialIndex.forGravity(store);
+
+        // Then calculate forces for each object using the populated tree.
+        // The tree is read only from here on and every body only writes its
+        // own acceleration slot, so the bodies can be split across threads
+        if (pool == null || store.size() < PARALLEL_GRAIN * 2) {
+            QuadTree.InteractionList list = interactionList.get();
+            for (int i = 0; i < store.size(); i++) {
+                quadTree.accumulateAcceleration(i, thetaThreshold, list);
+            }
+        }
+        else {
+            pool.invoke(new TreeForceTask(quadTree, 0, store.size()));
+        }
+    }
+
+
+    // Barnes-Hut for the listed bodies only, the tree still holds every body.
+    // The block timestep integrator uses this for the bodies due a force update
+    static void computeForcesWithQuadTree(ParticleStore store, int[] bodies, int count) {
+        SpatialTree quadTree = spatialIndex.forGravity(store);
+        Parallel.forRange(0, count, PARALLEL_GRAIN, (from, to) -> {
+            QuadTree.InteractionList list = interactionList.get();
+            for (int k = from; k < to; k++) {
+                quadTree.accumulateAcceleration(bodies[k], thetaThreshold, list);
+            }
+        });
+    }
+
+
+    // Splits a body range in half until it is small enough to walk the tree for directly
+    private static class TreeForceTask extends RecursiveAction {
+        private final SpatialTree quadTree;
+        private final int from;
+        private final int to;
+
+        TreeForceTask(SpatialTree quadTree, int from, int to) {
+            this.quadTree = quadTree;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_GRAIN) {
+                QuadTree.InteractionList list = interactionList.get();
+                for (int i = from; i < to; i++) {
+                    quadTree.accumulateAcceleration(i, thetaThreshold, list);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new TreeForceTask(quadTree, from, mid), new TreeForceTask(quadTree, mid, to));
+        }
+    }
+
+
+    // Method to compute gravitational forces using the Fast Multipole Method
+    public static void computeForcesWithFMM(ParticleStore store) {
+        fastMultipole.computeForces(store);
+    }
+
+
+    // Method to compute gravitational forces with the particle-mesh (FFT) solver
+    public static void computeForcesWithParticleMesh(ParticleStore store) {
+        if (particleMesh == null) {
+            particleMesh = new ParticleMesh();
+        }
+        particleMesh.computeForces(store);
+    }
+
+}
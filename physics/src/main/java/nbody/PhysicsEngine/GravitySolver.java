@@ -0,0 +1,9 @@
+package nbody.PhysicsEngine;
+
+// A way of adding every body's gravitational acceleration into the store
+public interface GravitySolver {
+
+    String getName();
+
+    void computeForces(ParticleStore store);
+}
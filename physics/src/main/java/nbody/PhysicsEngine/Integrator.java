@@ -0,0 +1,10 @@
+package nbody.PhysicsEngine;
+
+// Advances every body in a store by one frame, asking the gravity solver for
+// forces as often as the scheme needs
+public interface Integrator {
+
+    String getName();
+
+    void step(ParticleStore store, float dt, GravitySolver gravity);
+}
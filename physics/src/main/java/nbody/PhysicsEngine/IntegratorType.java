@@ -0,0 +1,60 @@
+package nbody.PhysicsEngine;
+
+// The integrators the GUI can pick from. Integrators keep per body state,
+// so every lookup makes a new one
+public enum IntegratorType {
+    VERLET("Verlet") {
+        @Override
+        public Integrator create() {
+            return new VerletIntegrator();
+        }
+    },
+    LEAPFROG("Leapfrog (KDK)") {
+        @Override
+        public Integrator create() {
+            return new LeapfrogIntegrator();
+        }
+    },
+    YOSHIDA("Yoshida 4th Order") {
+        @Override
+        public Integrator create() {
+            return new YoshidaIntegrator();
+        }
+    },
+    BLOCK_TIMESTEPS("Block Timesteps") {
+        @Override
+        public Integrator create() {
+            return new BlockTimestepIntegrator();
+        }
+    };
+
+    private final String name;
+
+    IntegratorType(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public abstract Integrator create();
+
+
+    public static Integrator byName(String name) {
+        for (IntegratorType type : values()) {
+            if (type.name.equals(name)) {
+                return type.create();
+            }
+        }
+        throw new IllegalArgumentException("Unknown integrator: " + name);
+    }
+
+    public static String[] names() {
+        String[] names = new String[values().length];
+        for (IntegratorType type : values()) {
+            names[type.ordinal()] = type.name;
+        }
+        return names;
+    }
+}
@@ -0,0 +1,162 @@
+package nbody.PhysicsEngine;
+
+import java.util.Arrays;
+
+// Order independent contact solver.
+// The grid gives every nearby pair once; those pairs are turned into a per-body
+// contact list (both directions, CSR layout) so each body can add up its own
+// corrections without touching anyone else's. An iteration is two passes over
+// the bodies: gather every body's correction from the current positions, then
+// apply all of them at once. Both passes run on the worker pool and give the
+// same answer for any thread count or body order.
+//
+// A body's correction is the average over its overlapping contacts rather than
+// the sum, otherwise bodies squeezed from many sides overshoot.
+class JacobiContactSolver {
+    private static final float RESPONSE_COEF = 0.75f;   // same as CollisionManager.handleCollision
+    private static final double CONTACT_MARGIN = 1.1;   // keeps pairs that a correction may push into contact
+    private static final int GRAIN = 1024;
+
+    private ParticleStore store;
+    private int count;
+
+    // Deduplicated pair list
+    private int pairCount;
+    private int[] pairA = new int[0];
+    private int[] pairB = new int[0];
+
+    // Per-body contacts: other bodies of body i are contactOther[contactStart[i] .. contactStart[i + 1] - 1]
+    private int[] contactStart = new int[1];
+    private int[] contactOther = new int[0];
+
+    private double[] deltaX = new double[0];
+    private double[] deltaY = new double[0];
+
+    private final QuadTree.PairCallback collector = this::collect;
+    private final Parallel.RangeBody gatherBody = this::gather;
+    private final Parallel.RangeBody applyBody = this::apply;
+
+
+    // Builds grid on store itself, with cells wide enough for the contact margin
+    void solve(ParticleStore store, SpatialHashing grid, int iterations) {
+        this.store = store;
+        count = store.size();
+        ensureBodyCapacity();
+
+        // Plain cells are 2 * maxRadius wide, the widest pairs collect() keeps
+        // are 2 * maxRadius * CONTACT_MARGIN apart
+        float maxRadius = 0;
+        for (int i = 0; i < count; i++) {
+            maxRadius = Math.max(maxRadius, store.radius[i]);
+        }
+        grid.build(store, (CONTACT_MARGIN - 1) * 2 * maxRadius);
+
+        pairCount = 0;
+        grid.processCollisions(collector);
+        buildContacts();
+
+        for (int k = 0; k < iterations; k++) {
+            Parallel.forRange(0, count, GRAIN, gatherBody);
+            Parallel.forRange(0, count, GRAIN, applyBody);
+        }
+    }
+
+
+    private void collect(int i, int j) {
+        double dx = store.x[i] - store.x[j];
+        double dy = store.y[i] - store.y[j];
+        double reach = (store.radius[i] + store.radius[j]) * CONTACT_MARGIN;
+        if (dx * dx + dy * dy >= reach * reach) {
+            return;
+        }
+        if (pairCount == pairA.length) {
+            int capacity = Math.max(1024, pairCount * 2);
+            pairA = Arrays.copyOf(pairA, capacity);
+            pairB = Arrays.copyOf(pairB, capacity);
+        }
+        pairA[pairCount] = i;
+        pairB[pairCount] = j;
+        pairCount++;
+    }
+
+
+    // Counting sort of the pairs by body, each pair lands in both bodies' lists
+    private void buildContacts() {
+        Arrays.fill(contactStart, 0, count + 1, 0);
+        for (int p = 0; p < pairCount; p++) {
+            contactStart[pairA[p] + 1]++;
+            contactStart[pairB[p] + 1]++;
+        }
+        for (int i = 0; i < count; i++) {
+            contactStart[i + 1] += contactStart[i];
+        }
+        if (contactOther.length < 2 * pairCount) {
+            contactOther = new int[Math.max(2 * pairCount, contactOther.length * 2)];
+        }
+        // Fill from the back so contactStart ends up unchanged
+        for (int p = pairCount - 1; p >= 0; p--) {
+            contactOther[--contactStart[pairA[p] + 1]] = pairB[p];
+            contactOther[--contactStart[pairB[p] + 1]] = pairA[p];
+        }
+        // contactStart[i + 1] now holds body i's start, shift it back
+        for (int i = 0; i < count; i++) {
+            contactStart[i] = contactStart[i + 1];
+        }
+        contactStart[count] = 2 * pairCount;
+    }
+
+
+    private void gather(int from, int to) {
+        double[] x = store.x;
+        double[] y = store.y;
+        float[] radius = store.radius;
+        for (int i = from; i < to; i++) {
+            double sumX = 0;
+            double sumY = 0;
+            int active = 0;
+            for (int k = contactStart[i]; k < contactStart[i + 1]; k++) {
+                int j = contactOther[k];
+                double dx = x[i] - x[j];
+                double dy = y[i] - y[j];
+                double distSquared = dx * dx + dy * dy;
+                float minDist = radius[i] + radius[j];
+                if (distSquared >= minDist * minDist || distSquared == 0) {
+                    continue;
+                }
+                double dist = Math.sqrt(distSquared);
+                // Same split as handleCollision, i moves by the other body's share
+                double share = radius[j] / minDist;
+                double delta = 0.5 * RESPONSE_COEF * (dist - minDist);
+                sumX -= dx / dist * share * delta;
+                sumY -= dy / dist * share * delta;
+                active++;
+            }
+            deltaX[i] = active > 0 ? sumX / active : 0;
+            deltaY[i] = active > 0 ? sumY / active : 0;
+        }
+    }
+
+
+    private void apply(int from, int to) {
+        for (int i = from; i < to; i++) {
+            store.x[i] += deltaX[i];
+            store.y[i] += deltaY[i];
+        }
+    }
+
+
+    private void ensureBodyCapacity() {
+        if (deltaX.length < count) {
+            deltaX = new double[store.capacity()];
+            deltaY = new double[store.capacity()];
+        }
+        if (contactStart.length < count + 1) {
+            contactStart = new int[store.capacity() + 1];
+        }
+    }
+
+
+    int getPairCount() {
+        return pairCount;
+    }
+}
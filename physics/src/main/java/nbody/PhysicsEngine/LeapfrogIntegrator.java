@@ -0,0 +1,18 @@
+package nbody.PhysicsEngine;
+
+// Kick-drift-kick leapfrog, second order and one force evaluation per step
+public class LeapfrogIntegrator extends SymplecticIntegrator {
+
+    @Override
+    public String getName() {
+        return IntegratorType.LEAPFROG.getName();
+    }
+
+    @Override
+    protected void advance(float dt) {
+        kick(dt / 2.0);
+        drift(dt);
+        computeGravity();
+        kick(dt / 2.0);
+    }
+}
@@ -0,0 +1,348 @@
+package nbody.PhysicsEngine;
+
+import java.util.Arrays;
+
+// Linear quadtree built from Morton (Z-curve) keys.
+// Every body gets a 32 bit key interleaving 16 bits of x and y inside the
+// live bounding square, the keys are radix sorted, and each node is just a
+// contiguous range of the sorted bodies. Splitting a node only means finding
+// where the next 2 bit digit changes inside its range, so the build is a few
+// linear passes over flat arrays with no pointer chasing.
+public class MortonQuadTree implements SpatialTree {
+    private static final int KEY_BITS = 16;        // bits per axis, also the deepest possible level
+    private static final int ROOT = 0;
+
+    private final int maxObjects;
+    private final int maxLevels;
+
+    private ParticleStore store;
+    private float maxRadius;
+
+    // Sorted bodies: key, store index, and the positions / masses copied in
+    // key order so leaves read sequential memory
+    private int[] keys = new int[0];
+    private int[] order = new int[0];
+    private int[] keyScratch = new int[0];
+    private int[] orderScratch = new int[0];
+    private int[] radixCount = new int[256];
+    private double[] sortedX = new double[0];
+    private double[] sortedY = new double[0];
+    private double[] sortedMass = new double[0];
+
+    // Node pool, node n covers sorted bodies [start[n], end[n]) and its
+    // non empty children are firstChild[n] .. firstChild[n] + childCount[n] - 1
+    private int nodeCount;
+    private int[] start = new int[0];
+    private int[] end = new int[0];
+    private int[] level = new int[0];
+    private int[] firstChild = new int[0];
+    private int[] childCount = new int[0];
+    private double[] nodeX = new double[0];
+    private double[] nodeY = new double[0];
+    private double[] nodeSize = new double[0];
+    private double[] totalMass = new double[0];
+    private double[] centerX = new double[0];
+    private double[] centerY = new double[0];
+
+
+    public MortonQuadTree() {
+        this(QuadTree.DEFAULT_MAX_OBJECTS, QuadTree.DEFAULT_MAX_LEVELS);
+    }
+
+    // Depths past KEY_BITS are clamped, the keys cannot tell bodies apart below that
+    public MortonQuadTree(int maxObjects, int maxLevels) {
+        if (maxObjects < 1 || maxLevels < 0) {
+            throw new IllegalArgumentException("Leaf capacity must be >= 1 and depth >= 0");
+        }
+        this.maxObjects = maxObjects;
+        this.maxLevels = Math.min(maxLevels, KEY_BITS);
+    }
+
+
+    @Override
+    public void build(ParticleStore store) {
+        this.store = store;
+        int n = store.size();
+        ensureBodyCapacity(n);
+        nodeCount = 0;
+        maxRadius = 0;
+
+        // Bounding square of the live bodies
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            minX = Math.min(minX, store.x[i]);
+            minY = Math.min(minY, store.y[i]);
+            maxX = Math.max(maxX, store.x[i]);
+            maxY = Math.max(maxY, store.y[i]);
+            maxRadius = Math.max(maxRadius, store.radius[i]);
+        }
+        if (n == 0) {
+            minX = minY = 0;
+            maxX = maxY = 1;
+        }
+        double side = Math.max(Math.max(maxX - minX, maxY - minY), 1e-9);
+
+        computeKeys(minX, minY, side);
+        radixSort(n);
+
+        copySorted();
+
+        newNode(0, n, 0, minX, minY, side);
+        // Nodes are appended as they are split, so a forward sweep builds the whole tree
+        for (int node = 0; node < nodeCount; node++) {
+            if (end[node] - start[node] > maxObjects && level[node] < maxLevels) {
+                split(node);
+            }
+        }
+        updateMassAndCenter();
+    }
+
+
+    // 2^KEY_BITS cells over the side, the same cells split() gets by halving,
+    // so a body's key always lands in a node whose bounds contain it. Bodies on
+    // the far edge would be cell 2^KEY_BITS and are clamped into the last one
+    private void computeKeys(double minX, double minY, double side) {
+        double scale = (1 << KEY_BITS) / side;
+        int last = (1 << KEY_BITS) - 1;
+        for (int i = 0; i < store.size(); i++) {
+            int cx = Math.min(last, (int) ((store.x[i] - minX) * scale));
+            int cy = Math.min(last, (int) ((store.y[i] - minY) * scale));
+            // y takes the high bit of each pair so digit 0..3 = top left, top right, bottom left, bottom right
+            keys[i] = spread(cx) | (spread(cy) << 1);
+            order[i] = i;
+        }
+    }
+
+
+    // Positions and masses in key order so leaves read sequential memory
+    private void copySorted() {
+        for (int k = 0; k < store.size(); k++) {
+            int i = order[k];
+            sortedX[k] = store.x[i];
+            sortedY[k] = store.y[i];
+            sortedMass[k] = store.mass[i];
+        }
+    }
+
+
+    @Override
+    public void refreshMassAndCenter() {
+        copySorted();
+        updateMassAndCenter();
+    }
+
+
+    // Moves the low 16 bits of v to the even bit positions
+    private static int spread(int v) {
+        v &= 0xFFFF;
+        v = (v | (v << 8)) & 0x00FF00FF;
+        v = (v | (v << 4)) & 0x0F0F0F0F;
+        v = (v | (v << 2)) & 0x33333333;
+        v = (v | (v << 1)) & 0x55555555;
+        return v;
+    }
+
+
+    // LSD radix sort of (keys, order), four 8 bit passes
+    private void radixSort(int n) {
+        int[] srcKeys = keys, srcOrder = order;
+        int[] dstKeys = keyScratch, dstOrder = orderScratch;
+
+        for (int shift = 0; shift < 32; shift += 8) {
+            Arrays.fill(radixCount, 0);
+            for (int k = 0; k < n; k++) {
+                radixCount[(srcKeys[k] >>> shift) & 0xFF]++;
+            }
+            int sum = 0;
+            for (int b = 0; b < 256; b++) {
+                int c = radixCount[b];
+                radixCount[b] = sum;
+                sum += c;
+            }
+            for (int k = 0; k < n; k++) {
+                int dst = radixCount[(srcKeys[k] >>> shift) & 0xFF]++;
+                dstKeys[dst] = srcKeys[k];
+                dstOrder[dst] = srcOrder[k];
+            }
+            int[] t = srcKeys; srcKeys = dstKeys; dstKeys = t;
+            t = srcOrder; srcOrder = dstOrder; dstOrder = t;
+        }
+        // Four passes means the sorted data ends up back in keys / order
+    }
+
+
+    // Cuts a node's range into its non empty quadrants
+    private void split(int node) {
+        int childLevel = level[node] + 1;
+        int shift = 2 * (KEY_BITS - childLevel);
+        double half = nodeSize[node] / 2;
+        int from = start[node];
+        int to = end[node];
+
+        firstChild[node] = nodeCount;
+        for (int digit = 0; digit < 4; digit++) {
+            // Keys in the range share their higher digits, so they are sorted by this one
+            int stop = from;
+            while (stop < to && ((keys[stop] >>> shift) & 3) == digit) {
+                stop++;
+            }
+            if (stop > from) {
+                double x = nodeX[node] + ((digit & 1) != 0 ? half : 0);
+                double y = nodeY[node] + ((digit & 2) != 0 ? half : 0);
+                newNode(from, stop, childLevel, x, y, half);
+                childCount[node]++;
+            }
+            from = stop;
+        }
+    }
+
+
+    // Children always sit after their parent, so walking backwards is a post order pass
+    private void updateMassAndCenter() {
+        for (int n = nodeCount - 1; n >= 0; n--) {
+            double m = 0;
+            double mx = 0;
+            double my = 0;
+
+            if (childCount[n] == 0) {
+                for (int k = start[n]; k < end[n]; k++) {
+                    m += sortedMass[k];
+                    mx += sortedMass[k] * sortedX[k];
+                    my += sortedMass[k] * sortedY[k];
+                }
+            }
+            else {
+                for (int c = firstChild[n]; c < firstChild[n] + childCount[n]; c++) {
+                    m += totalMass[c];
+                    mx += totalMass[c] * centerX[c];
+                    my += totalMass[c] * centerY[c];
+                }
+            }
+
+            totalMass[n] = m;
+            centerX[n] = m > 0 ? mx / m : 0;
+            centerY[n] = m > 0 ? my / m : 0;
+        }
+    }
+
+
+    @Override
+    public void accumulateAcceleration(int i, double thetaThreshold, QuadTree.InteractionList list) {
+        list.clear();
+        collectInteractions(ROOT, i, thetaThreshold, list);
+        GravityKernel.accumulate(store.x[i], store.y[i], list.x, list.y, list.m, 0, list.size,
+                store.ax, store.ay, i);
+    }
+
+
+    private void collectInteractions(int node, int i, double thetaThreshold, QuadTree.InteractionList list) {
+        if (totalMass[node] == 0) {
+            return;
+        }
+
+        double dx = centerX[node] - store.x[i];
+        double dy = centerY[node] - store.y[i];
+        double distance = Math.sqrt(dx * dx + dy * dy);
+
+        if ((nodeSize[node] / distance) < thetaThreshold) {
+            list.add(centerX[node], centerY[node], totalMass[node]);
+        }
+        else if (childCount[node] > 0) {
+            for (int c = firstChild[node]; c < firstChild[node] + childCount[node]; c++) {
+                collectInteractions(c, i, thetaThreshold, list);
+            }
+        }
+        else {
+            // A leaf is a contiguous run of the sorted arrays
+            for (int k = start[node]; k < end[node]; k++) {
+                list.add(sortedX[k], sortedY[k], sortedMass[k]);
+            }
+        }
+    }
+
+
+    @Override
+    public void findPotentialCollisions(int i, QuadTree.PairCallback callback) {
+        if (nodeCount > 0) {
+            findPotentialCollisions(ROOT, i, store.radius[i] + maxRadius, callback);
+        }
+    }
+
+
+    private void findPotentialCollisions(int node, int i, double reach, QuadTree.PairCallback callback) {
+        double cx = store.x[i];
+        double cy = store.y[i];
+        double closestX = Math.max(nodeX[node], Math.min(cx, nodeX[node] + nodeSize[node]));
+        double closestY = Math.max(nodeY[node], Math.min(cy, nodeY[node] + nodeSize[node]));
+        double distanceX = cx - closestX;
+        double distanceY = cy - closestY;
+        if (distanceX * distanceX + distanceY * distanceY > reach * reach) {
+            return;
+        }
+
+        if (childCount[node] > 0) {
+            for (int c = firstChild[node]; c < firstChild[node] + childCount[node]; c++) {
+                findPotentialCollisions(c, i, reach, callback);
+            }
+            return;
+        }
+
+        for (int k = start[node]; k < end[node]; k++) {
+            if (order[k] != i) {
+                callback.processPair(i, order[k]);
+            }
+        }
+    }
+
+
+    private int newNode(int from, int to, int nodeLevel, double x, double y, double size) {
+        if (nodeCount == start.length) {
+            growNodes(Math.max(64, nodeCount * 2));
+        }
+        int n = nodeCount++;
+        start[n] = from;
+        end[n] = to;
+        level[n] = nodeLevel;
+        firstChild[n] = 0;
+        childCount[n] = 0;
+        nodeX[n] = x;
+        nodeY[n] = y;
+        nodeSize[n] = size;
+        return n;
+    }
+
+
+    private void growNodes(int capacity) {
+        start = Arrays.copyOf(start, capacity);
+        end = Arrays.copyOf(end, capacity);
+        level = Arrays.copyOf(level, capacity);
+        firstChild = Arrays.copyOf(firstChild, capacity);
+        childCount = Arrays.copyOf(childCount, capacity);
+        nodeX = Arrays.copyOf(nodeX, capacity);
+        nodeY = Arrays.copyOf(nodeY, capacity);
+        nodeSize = Arrays.copyOf(nodeSize, capacity);
+        totalMass = Arrays.copyOf(totalMass, capacity);
+        centerX = Arrays.copyOf(centerX, capacity);
+        centerY = Arrays.copyOf(centerY, capacity);
+    }
+
+
+    private void ensureBodyCapacity(int n) {
+        if (keys.length < n) {
+            int capacity = store.capacity();
+            keys = new int[capacity];
+            order = new int[capacity];
+            keyScratch = new int[capacity];
+            orderScratch = new int[capacity];
+            sortedX = new double[capacity];
+            sortedY = new double[capacity];
+            sortedMass = new double[capacity];
+        }
+    }
+
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+}
@@ -0,0 +1,159 @@
+package nbody.PhysicsEngine;
+
+import java.util.Arrays;
+
+// Verlet neighbour lists for collisions.
+// Every pair closer than contact distance plus a skin is stored once, under
+// the body that comes first in the grid sweep. The lists stay valid until some
+// body has moved more than half the skin from where it was at the last build,
+// since two bodies can then close at most one skin on each other, so the
+// broadphase only runs every few substeps instead of every one.
+public class NeighborList {
+    public static final double DEFAULT_SKIN = 0.5;   // times the largest radius
+
+    private final SpatialHashing grid = new SpatialHashing();
+    private final QuadTree.PairCallback collector = this::collect;
+    private double skinFactor = DEFAULT_SKIN;
+
+    private ParticleStore store;
+    private int count;
+    private double skin;
+
+    // Body i's neighbours are neighbors[start[i] .. start[i + 1] - 1]
+    private int[] start = new int[1];
+    private int[] neighbors = new int[0];
+    private int pairCount;
+    private int[] pairA = new int[0];
+    private int[] pairB = new int[0];
+
+    // Positions at the last build
+    private double[] buildX = new double[0];
+    private double[] buildY = new double[0];
+
+    private long rebuilds;
+    private long updates;
+
+
+    public void setSkin(double factorOfLargestRadius) {
+        skinFactor = Math.max(0, factorOfLargestRadius);
+        store = null;   // force a rebuild with the new reach
+    }
+
+
+    // Rebuilds the lists if they may have gone stale, returns true if it did
+    public boolean update(ParticleStore store) {
+        updates++;
+        if (store == this.store && store.size() == count && !movedTooFar()) {
+            return false;
+        }
+        build(store);
+        rebuilds++;
+        return true;
+    }
+
+
+    private boolean movedTooFar() {
+        double limit = skin * skin / 4;
+        for (int i = 0; i < count; i++) {
+            double dx = store.x[i] - buildX[i];
+            double dy = store.y[i] - buildY[i];
+            if (dx * dx + dy * dy > limit) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    private void build(ParticleStore store) {
+        this.store = store;
+        count = store.size();
+        if (buildX.length < count) {
+            buildX = new double[store.capacity()];
+            buildY = new double[store.capacity()];
+            start = new int[store.capacity() + 1];
+        }
+
+        float maxRadius = 0;
+        for (int i = 0; i < count; i++) {
+            maxRadius = Math.max(maxRadius, store.radius[i]);
+        }
+        skin = skinFactor * maxRadius;
+        System.arraycopy(store.x, 0, buildX, 0, count);
+        System.arraycopy(store.y, 0, buildY, 0, count);
+
+        pairCount = 0;
+        grid.build(store, skin);
+        grid.processCollisions(collector);
+
+        // Counting sort of the pairs by their first body
+        Arrays.fill(start, 0, count + 1, 0);
+        for (int p = 0; p < pairCount; p++) {
+            start[pairA[p] + 1]++;
+        }
+        for (int i = 0; i < count; i++) {
+            start[i + 1] += start[i];
+        }
+        if (neighbors.length < pairCount) {
+            neighbors = new int[Math.max(pairCount, neighbors.length * 2)];
+        }
+        for (int p = pairCount - 1; p >= 0; p--) {
+            neighbors[--start[pairA[p] + 1]] = pairB[p];
+        }
+        for (int i = 0; i < count; i++) {
+            start[i] = start[i + 1];
+        }
+        start[count] = pairCount;
+    }
+
+
+    private void collect(int i, int j) {
+        double dx = store.x[i] - store.x[j];
+        double dy = store.y[i] - store.y[j];
+        double reach = store.radius[i] + store.radius[j] + skin;
+        if (dx * dx + dy * dy >= reach * reach) {
+            return;
+        }
+        if (pairCount == pairA.length) {
+            int capacity = Math.max(1024, pairCount * 2);
+            pairA = Arrays.copyOf(pairA, capacity);
+            pairB = Arrays.copyOf(pairB, capacity);
+        }
+        pairA[pairCount] = i;
+        pairB[pairCount] = j;
+        pairCount++;
+    }
+
+
+    // Calls back once for every listed pair
+    public void processCollisions(QuadTree.PairCallback callback) {
+        for (int i = 0; i < count; i++) {
+            for (int k = start[i]; k < start[i + 1]; k++) {
+                callback.processPair(i, neighbors[k]);
+            }
+        }
+    }
+
+
+    public long getRebuildCount() {
+        return rebuilds;
+    }
+
+    public long getUpdateCount() {
+        return updates;
+    }
+
+    // Average number of updates each build was reused for
+    public double getStepsPerRebuild() {
+        return rebuilds == 0 ? 0 : (double) updates / rebuilds;
+    }
+
+    public int getPairCount() {
+        return pairCount;
+    }
+
+    public void resetStats() {
+        rebuilds = 0;
+        updates = 0;
+    }
+}
@@ -0,0 +1,51 @@
+package nbody.PhysicsEngine;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Splits an index range over GravityManager's worker pool, or runs it
+// inline when the pool is off (thread count 1) or the range is small.
+final class Parallel {
+
+    interface RangeBody {
+        void run(int from, int to);
+    }
+
+    private Parallel() {
+    }
+
+
+    static void forRange(int from, int to, int grain, RangeBody body) {
+        ForkJoinPool pool = GravityManager.pool();
+        if (pool == null || to - from <= grain) {
+            body.run(from, to);
+            return;
+        }
+        pool.invoke(new RangeTask(from, to, grain, body));
+    }
+
+
+    private static class RangeTask extends RecursiveAction {
+        private final int from;
+        private final int to;
+        private final int grain;
+        private final RangeBody body;
+
+        RangeTask(int from, int to, int grain, RangeBody body) {
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+            this.body = body;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                body.run(from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new RangeTask(from, mid, grain, body), new RangeTask(mid, to, grain, body));
+        }
+    }
+}
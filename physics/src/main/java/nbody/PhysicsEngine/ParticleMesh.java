@@ -0,0 +1,293 @@
+package nbody.PhysicsEngine;
+
+import java.util.Arrays;
+
+// Particle-mesh gravity, O(N + G^2 log G) per step.
+//   1. cloud-in-cell deposit of the masses onto a G x G grid over the bodies' bounding square
+//   2. potential = mass grid convolved with the 1/r kernel, done with FFTs on a
+//      zero padded 2G x 2G grid so the far side of the grid does not wrap around
+//      (Hockney-Eastwood isolated boundaries)
+//   3. central differences for the field, cloud-in-cell interpolation back to the bodies
+//
+// The simulation's force is 1/r^2 in the plane, so the Green's function is the
+// (softened) 1/r kernel rather than the 2D Poisson log kernel; its spectrum is
+// computed once per grid size and only rescaled by the cell size each step.
+// Resolution is one cell, so close encounters are smoothed out.
+public class ParticleMesh {
+    public static final int DEFAULT_GRID_SIZE = 256;
+    private static final int MARGIN = 2;   // empty cells kept around the bodies
+
+    private final int gridSize;            // G, power of two
+    private final int padded;              // 2G
+    private final int log2Padded;
+
+    // Kernel spectrum for cell size 1
+    private final double[] greenRe;
+    private final double[] greenIm;
+
+    // FFT tables for length padded
+    private final double[] cosTable;
+    private final double[] sinTable;
+    private final int[] bitReverse;
+
+    private final double[] workRe;
+    private final double[] workIm;
+    private final double[] fieldX;
+    private final double[] fieldY;
+    private double[][] depositGrids = new double[0][];
+
+    private ParticleStore store;
+    private double originX, originY, cellSize;
+
+    private final ThreadLocal<double[][]> lineScratch;
+
+
+    public ParticleMesh() {
+        this(DEFAULT_GRID_SIZE);
+    }
+
+    public ParticleMesh(int gridSize) {
+        if (gridSize < 8 || Integer.bitCount(gridSize) != 1) {
+            throw new IllegalArgumentException("Grid size must be a power of two >= 8");
+        }
+        this.gridSize = gridSize;
+        this.padded = 2 * gridSize;
+        this.log2Padded = Integer.numberOfTrailingZeros(padded);
+
+        cosTable = new double[padded / 2];
+        sinTable = new double[padded / 2];
+        for (int k = 0; k < padded / 2; k++) {
+            cosTable[k] = Math.cos(2 * Math.PI * k / padded);
+            sinTable[k] = Math.sin(2 * Math.PI * k / padded);
+        }
+        bitReverse = new int[padded];
+        for (int k = 0; k < padded; k++) {
+            bitReverse[k] = Integer.reverse(k) >>> (32 - log2Padded);
+        }
+
+        workRe = new double[padded * padded];
+        workIm = new double[padded * padded];
+        fieldX = new double[gridSize * gridSize];
+        fieldY = new double[gridSize * gridSize];
+        lineScratch = ThreadLocal.withInitial(() -> new double[2][padded]);
+
+        // -1 / sqrt(d^2 + 1) with wrap around offsets, softened by one cell
+        greenRe = new double[padded * padded];
+        greenIm = new double[padded * padded];
+        for (int gy = 0; gy < padded; gy++) {
+            int dy = gy < gridSize ? gy : gy - padded;
+            for (int gx = 0; gx < padded; gx++) {
+                int dx = gx < gridSize ? gx : gx - padded;
+                greenRe[gy * padded + gx] = -1 / Math.sqrt(dx * dx + dy * dy + 1.0);
+            }
+        }
+        fft2d(greenRe, greenIm, padded, false);
+    }
+
+
+    public int getGridSize() {
+        return gridSize;
+    }
+
+
+    public void computeForces(ParticleStore store) {
+        this.store = store;
+        int n = store.size();
+        if (n < 2) {
+            return;
+        }
+
+        fitGrid();
+        deposit();
+
+        // Potential = G / h * (mass grid (*) unit kernel)
+        Arrays.fill(workIm, 0);
+        fft2d(workRe, workIm, gridSize, false);
+        Parallel.forRange(0, padded * padded, 1 << 14, (from, to) -> {
+            for (int k = from; k < to; k++) {
+                double re = workRe[k] * greenRe[k] - workIm[k] * greenIm[k];
+                double im = workRe[k] * greenIm[k] + workIm[k] * greenRe[k];
+                workRe[k] = re;
+                workIm[k] = im;
+            }
+        });
+        fft2d(workRe, workIm, padded, true);
+
+        computeField(GravityManager.G / cellSize);
+        Parallel.forRange(0, n, 1024, this::interpolate);
+    }
+
+
+    // Bounding square with MARGIN empty cells on every side
+    private void fitGrid() {
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < store.size(); i++) {
+            minX = Math.min(minX, store.x[i]);
+            minY = Math.min(minY, store.y[i]);
+            maxX = Math.max(maxX, store.x[i]);
+            maxY = Math.max(maxY, store.y[i]);
+        }
+        double side = Math.max(Math.max(maxX - minX, maxY - minY), 1e-9);
+        cellSize = side / (gridSize - 2 * MARGIN - 1);
+        originX = minX - MARGIN * cellSize;
+        originY = minY - MARGIN * cellSize;
+    }
+
+
+    // Cloud-in-cell deposit. Each worker chunk fills its own grid, then the
+    // grids are summed into the top left G x G block of the padded work array
+    private void deposit() {
+        int chunks = Math.max(1, Math.min(GravityManager.getThreadCount(), store.size() / 4096));
+        if (depositGrids.length != chunks) {
+            depositGrids = new double[chunks][gridSize * gridSize];
+        }
+        int n = store.size();
+
+        Parallel.forRange(0, chunks, 1, (from, to) -> {
+            for (int c = from; c < to; c++) {
+                double[] grid = depositGrids[c];
+                Arrays.fill(grid, 0);
+                for (int i = (int) ((long) n * c / chunks); i < (int) ((long) n * (c + 1) / chunks); i++) {
+                    double gx = (store.x[i] - originX) / cellSize;
+                    double gy = (store.y[i] - originY) / cellSize;
+                    int ix = (int) gx;
+                    int iy = (int) gy;
+                    double fx = gx - ix;
+                    double fy = gy - iy;
+                    double m = store.mass[i];
+                    int g = iy * gridSize + ix;
+                    grid[g] += m * (1 - fx) * (1 - fy);
+                    grid[g + 1] += m * fx * (1 - fy);
+                    grid[g + gridSize] += m * (1 - fx) * fy;
+                    grid[g + gridSize + 1] += m * fx * fy;
+                }
+            }
+        });
+
+        Arrays.fill(workRe, 0);
+        Parallel.forRange(0, gridSize, 16, (from, to) -> {
+            for (int row = from; row < to; row++) {
+                for (int col = 0; col < gridSize; col++) {
+                    double sum = 0;
+                    for (double[] grid : depositGrids) {
+                        sum += grid[row * gridSize + col];
+                    }
+                    workRe[row * padded + col] = sum;
+                }
+            }
+        });
+    }
+
+
+    // Field = -grad(potential) by central differences, potential = scale * workRe
+    private void computeField(double scale) {
+        double factor = -scale / (2 * cellSize);
+        Parallel.forRange(1, gridSize - 1, 16, (from, to) -> {
+            for (int row = from; row < to; row++) {
+                for (int col = 1; col < gridSize - 1; col++) {
+                    int p = row * padded + col;
+                    fieldX[row * gridSize + col] = factor * (workRe[p + 1] - workRe[p - 1]);
+                    fieldY[row * gridSize + col] = factor * (workRe[p + padded] - workRe[p - padded]);
+                }
+            }
+        });
+    }
+
+
+    private void interpolate(int from, int to) {
+        for (int i = from; i < to; i++) {
+            double gx = (store.x[i] - originX) / cellSize;
+            double gy = (store.y[i] - originY) / cellSize;
+            int ix = (int) gx;
+            int iy = (int) gy;
+            double fx = gx - ix;
+            double fy = gy - iy;
+            int g = iy * gridSize + ix;
+            double w00 = (1 - fx) * (1 - fy);
+            double w10 = fx * (1 - fy);
+            double w01 = (1 - fx) * fy;
+            double w11 = fx * fy;
+            store.ax[i] += w00 * fieldX[g] + w10 * fieldX[g + 1] + w01 * fieldX[g + gridSize] + w11 * fieldX[g + gridSize + 1];
+            store.ay[i] += w00 * fieldY[g] + w10 * fieldY[g + 1] + w01 * fieldY[g + gridSize] + w11 * fieldY[g + gridSize + 1];
+        }
+    }
+
+
+    // 2D FFT of a padded x padded grid. Only the first usedRows rows are non zero
+    // going forward, and only the first gridSize rows are read after the inverse,
+    // so the row passes skip the rest
+    private void fft2d(double[] re, double[] im, int usedRows, boolean inverse) {
+        if (!inverse) {
+            Parallel.forRange(0, usedRows, 8, (from, to) -> transformRows(re, im, from, to, false));
+            Parallel.forRange(0, padded, 8, (from, to) -> transformColumns(re, im, from, to, false));
+        }
+        else {
+            Parallel.forRange(0, padded, 8, (from, to) -> transformColumns(re, im, from, to, true));
+            Parallel.forRange(0, gridSize, 8, (from, to) -> transformRows(re, im, from, to, true));
+        }
+    }
+
+
+    private void transformRows(double[] re, double[] im, int from, int to, boolean inverse) {
+        double[][] line = lineScratch.get();
+        double scale = inverse ? 1.0 / ((double) padded * padded) : 1;
+        for (int row = from; row < to; row++) {
+            int base = row * padded;
+            System.arraycopy(re, base, line[0], 0, padded);
+            System.arraycopy(im, base, line[1], 0, padded);
+            fft(line[0], line[1], inverse);
+            for (int k = 0; k < padded; k++) {
+                re[base + k] = line[0][k] * scale;
+                im[base + k] = line[1][k] * scale;
+            }
+        }
+    }
+
+
+    private void transformColumns(double[] re, double[] im, int from, int to, boolean inverse) {
+        double[][] line = lineScratch.get();
+        for (int col = from; col < to; col++) {
+            for (int k = 0; k < padded; k++) {
+                line[0][k] = re[k * padded + col];
+                line[1][k] = im[k * padded + col];
+            }
+            fft(line[0], line[1], inverse);
+            for (int k = 0; k < padded; k++) {
+                re[k * padded + col] = line[0][k];
+                im[k * padded + col] = line[1][k];
+            }
+        }
+    }
+
+
+    // In place iterative radix 2 FFT of length padded, inverse is unscaled
+    private void fft(double[] re, double[] im, boolean inverse) {
+        for (int k = 0; k < padded; k++) {
+            int r = bitReverse[k];
+            if (r > k) {
+                double t = re[k]; re[k] = re[r]; re[r] = t;
+                t = im[k]; im[k] = im[r]; im[r] = t;
+            }
+        }
+        double sign = inverse ? 1 : -1;
+        for (int len = 2; len <= padded; len <<= 1) {
+            int half = len >> 1;
+            int step = padded / len;
+            for (int start = 0; start < padded; start += len) {
+                for (int k = 0; k < half; k++) {
+                    double wr = cosTable[k * step];
+                    double wi = sign * sinTable[k * step];
+                    int a = start + k;
+                    int b = a + half;
+                    double tr = re[b] * wr - im[b] * wi;
+                    double ti = re[b] * wi + im[b] * wr;
+                    re[b] = re[a] - tr;
+                    im[b] = im[a] - ti;
+                    re[a] += tr;
+                    im[a] += ti;
+                }
+            }
+        }
+    }
+}
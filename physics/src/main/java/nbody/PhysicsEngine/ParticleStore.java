@@ -0,0 +1,187 @@
+package nbody.PhysicsEngine;
+
+import java.util.Arrays;
+
+// Structure-of-arrays storage for every body in a system.
+// Body i lives at index i of every array, so the hot loops walk memory
+// sequentially instead of chasing VerletObject -> Point2D references.
+public class ParticleStore {
+    private static final int DEFAULT_CAPACITY = 64;
+
+    double[] x;
+    double[] y;
+    double[] oldX;
+    double[] oldY;
+    double[] ax;
+    double[] ay;
+    double[] lastAx;    // acceleration the last step applied, ax / ay are cleared by then
+    double[] lastAy;
+    float[] mass;
+    float[] radius;
+
+    private int count;
+
+    // Bumped whenever the bodies are added, removed or all moved at once,
+    // so cached structures over the positions can tell they are stale
+    private int generation;
+
+
+    public ParticleStore() {
+        this(DEFAULT_CAPACITY);
+    }
+
+
+    public ParticleStore(int capacity) {
+        capacity = Math.max(1, capacity);
+        x = new double[capacity];
+        y = new double[capacity];
+        oldX = new double[capacity];
+        oldY = new double[capacity];
+        ax = new double[capacity];
+        ay = new double[capacity];
+        lastAx = new double[capacity];
+        lastAy = new double[capacity];
+        mass = new float[capacity];
+        radius = new float[capacity];
+    }
+
+
+    // Adds a body at rest and returns its index
+    public int add(double px, double py, float rad, float m) {
+        if (count == x.length) {
+            grow(count * 2);
+        }
+        int i = count++;
+        generation++;
+        x[i] = px;
+        y[i] = py;
+        oldX[i] = px;
+        oldY[i] = py;
+        ax[i] = 0;
+        ay[i] = 0;
+        lastAx[i] = 0;
+        lastAy[i] = 0;
+        radius[i] = rad;
+        mass[i] = m;
+        return i;
+    }
+
+
+    // Copies body i of another store into this one and returns the new index
+    int copyFrom(ParticleStore other, int i) {
+        int j = add(other.x[i], other.y[i], other.radius[i], other.mass[i]);
+        oldX[j] = other.oldX[i];
+        oldY[j] = other.oldY[i];
+        ax[j] = other.ax[i];
+        ay[j] = other.ay[i];
+        lastAx[j] = other.lastAx[i];
+        lastAy[j] = other.lastAy[i];
+        return j;
+    }
+
+
+    // Verlet step for every body, in place and without allocating
+    public void integrate(float dt) {
+        generation++;
+        float dt2 = dt * dt;
+        for (int i = 0; i < count; i++) {
+            integrate(i, dt2);
+        }
+    }
+
+
+    // Verlet step for a single body, dt2 is the squared timestep
+    void integrate(int i, float dt2) {
+        double px = x[i];
+        double py = y[i];
+        x[i] = 2 * px - oldX[i] + ax[i] * dt2;
+        y[i] = 2 * py - oldY[i] + ay[i] * dt2;
+        oldX[i] = px;
+        oldY[i] = py;
+        lastAx[i] = ax[i];
+        lastAy[i] = ay[i];
+        ax[i] = 0;
+        ay[i] = 0;
+    }
+
+
+    public void addAcceleration(int i, double accX, double accY) {
+        ax[i] += accX;
+        ay[i] += accY;
+    }
+
+
+    public void ensureCapacity(int capacity) {
+        if (capacity > x.length) {
+            grow(capacity);
+        }
+    }
+
+
+    private void grow(int capacity) {
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        oldX = Arrays.copyOf(oldX, capacity);
+        oldY = Arrays.copyOf(oldY, capacity);
+        ax = Arrays.copyOf(ax, capacity);
+        ay = Arrays.copyOf(ay, capacity);
+        lastAx = Arrays.copyOf(lastAx, capacity);
+        lastAy = Arrays.copyOf(lastAy, capacity);
+        mass = Arrays.copyOf(mass, capacity);
+        radius = Arrays.copyOf(radius, capacity);
+    }
+
+
+    public void clear() {
+        count = 0;
+        generation++;
+    }
+
+    // Call after moving every body outside integrate(), e.g. an integrator's drift
+    public void advanceGeneration() {
+        generation++;
+    }
+
+    public int getGeneration() {
+        return generation;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public int capacity() {
+        return x.length;
+    }
+
+
+    //Getters & Setters
+    public double getX(int i) { return x[i]; }
+    public double getY(int i) { return y[i]; }
+    public double getOldX(int i) { return oldX[i]; }
+    public double getOldY(int i) { return oldY[i]; }
+    public double getAccelX(int i) { return ax[i]; }
+    public double getAccelY(int i) { return ay[i]; }
+    public double getLastAccelX(int i) { return lastAx[i]; }
+    public double getLastAccelY(int i) { return lastAy[i]; }
+    public float getMass(int i) { return mass[i]; }
+    public float getRadius(int i) { return radius[i]; }
+
+    public void setPosition(int i, double px, double py) {
+        x[i] = px;
+        y[i] = py;
+    }
+
+    public void setOldPosition(int i, double px, double py) {
+        oldX[i] = px;
+        oldY[i] = py;
+    }
+
+    public void setAcceleration(int i, double accX, double accY) {
+        ax[i] = accX;
+        ay[i] = accY;
+    }
+
+    public void setMass(int i, float m) { mass[i] = m; }
+    public void setRadius(int i, float r) { radius[i] = r; }
+}
@@ -0,0 +1,164 @@
+package nbody.PhysicsEngine;
+
+import java.util.concurrent.locks.LockSupport;
+
+// Steps the simulation on its own thread at a fixed timestep.
+// After every step the positions are copied into a snapshot the renderer can
+// pick up lock free with latestSnapshot(), so drawing never waits on physics
+// and a slow frame never changes dt. In real time mode the loop sleeps to keep
+// simulated time in line with the wall clock and, when a step costs more than
+// dt, drops the backlog instead of trying to catch up forever.
+public class PhysicsThread {
+    private static final long MAX_LAG_NANOS = 250_000_000L;
+
+    // One fixed step of the whole simulation, runs on the physics thread
+    public interface StepBody {
+        void step(float dt);
+    }
+
+    // Called on the physics thread after each step, e.g. for tracking output
+    public interface StepListener {
+        void afterStep(double time, long step);
+
+        // Once, on the physics thread, when the loop has ended for any reason
+        default void finished(double time, long steps) {
+        }
+    }
+
+    private final ParticleStore store;
+    private final float dt;
+    private final StepBody body;
+    private final SnapshotBuffer snapshots = new SnapshotBuffer();
+
+    private StepListener listener;
+    private double timeLimit = Double.POSITIVE_INFINITY;
+    private boolean realTime = true;
+
+    private Thread thread;
+    private volatile boolean running;
+    private volatile boolean finished;
+    private volatile Throwable failure;
+    private double time;
+    private long steps;
+
+
+    public PhysicsThread(ParticleStore store, float dt, StepBody body) {
+        if (dt <= 0) {
+            throw new IllegalArgumentException("Timestep must be > 0");
+        }
+        this.store = store;
+        this.dt = dt;
+        this.body = body;
+    }
+
+
+    public void setStepListener(StepListener listener) {
+        this.listener = listener;
+    }
+
+    // Stops by itself once this many simulated seconds have passed
+    public void setTimeLimit(double seconds) {
+        timeLimit = seconds;
+    }
+
+    // false runs steps back to back, as fast as they go
+    public void setRealTime(boolean realTime) {
+        this.realTime = realTime;
+    }
+
+
+    public synchronized void start() {
+        if (thread != null) {
+            throw new IllegalStateException("Physics thread already started");
+        }
+        running = true;
+        snapshots.back().copyFrom(store, time, steps);
+        snapshots.publish();
+        thread = new Thread(this::run, "physics");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+
+    // Asks the loop to stop after the current step and waits for it
+    public void stop() {
+        running = false;
+        Thread t = thread;
+        if (t != null && t != Thread.currentThread()) {
+            try {
+                t.join();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+
+    private void run() {
+        long stepNanos = (long) (dt * 1e9);
+        long next = System.nanoTime();
+        try {
+            while (running && time < timeLimit) {
+                body.step(dt);
+                time += dt;
+                steps++;
+                if (listener != null) {
+                    listener.afterStep(time, steps);
+                }
+                snapshots.back().copyFrom(store, time, steps);
+                snapshots.publish();
+
+                if (realTime) {
+                    next += stepNanos;
+                    long wait = next - System.nanoTime();
+                    if (wait > 0) {
+                        LockSupport.parkNanos(wait);
+                    }
+                    else if (-wait > MAX_LAG_NANOS) {
+                        next = System.nanoTime();
+                    }
+                }
+            }
+        }
+        catch (Throwable t) {
+            failure = t;
+            t.printStackTrace();
+        }
+        finally {
+            running = false;
+            if (listener != null) {
+                try {
+                    listener.finished(time, steps);
+                }
+                catch (Throwable t) {
+                    if (failure == null) {
+                        failure = t;
+                    }
+                    t.printStackTrace();
+                }
+            }
+            finished = true;
+        }
+    }
+
+
+    // Newest published positions, only to be read until the next call.
+    // Meant for a single reader thread, e.g. the JavaFX thread
+    public Snapshot latestSnapshot() {
+        return snapshots.acquire();
+    }
+
+    // True once the loop has ended, by stop(), the time limit or an error
+    public boolean isFinished() {
+        return finished;
+    }
+
+    public Throwable getFailure() {
+        return failure;
+    }
+
+    public float getTimestep() {
+        return dt;
+    }
+}
@@ -0,0 +1,437 @@
+package nbody.PhysicsEngine;
+
+import java.util.Arrays;
+
+// Barnes-Hut / broadphase quadtree over the bodies of a ParticleStore.
+// Nodes live in a flat pool of primitive arrays that is reset and reused
+// every frame, so rebuilding the tree does not allocate once the pool has
+// grown to fit the body count.
+// Unless fixed bounds are given the root is the bounding square of the
+// live bodies, recomputed on every build.
+public class QuadTree implements SpatialTree {
+    public static final int DEFAULT_MAX_OBJECTS = 4;
+    public static final int DEFAULT_MAX_LEVELS = 16;
+    private static final int ROOT = 0;
+    private static final int NONE = -1;
+
+    private final Rectangle bounds;     // null means fit to the bodies
+    private final int maxObjects;       // bodies a leaf holds before it splits
+    private final int maxLevels;        // leaves at this depth never split
+    private double rootX, rootY, rootWidth, rootHeight;
+    private ParticleStore store;
+    private float maxRadius;
+
+    // Node pool. Children of node n are firstChild[n] .. firstChild[n] + 3,
+    // in the order top right, top left, bottom left, bottom right
+    private int nodeCount;
+    private double[] nodeX;
+    private double[] nodeY;
+    private double[] nodeWidth;
+    private double[] nodeHeight;
+    private int[] level;
+    private int[] firstChild;
+    private int[] head;      // first body of the node's list
+    private int[] size;      // bodies in the node's list
+    private double[] totalMass;
+    private double[] centerX;
+    private double[] centerY;
+
+    // Singly linked body lists, next[i] is the body after i in its node
+    private int[] next = new int[0];
+
+
+    public interface PairCallback {
+        void processPair(int i, int j);
+    }
+
+    public static class Rectangle {
+        double x, y, width, height;
+
+        public Rectangle(double x, double y, double width, double height) {
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.height = height;
+        }
+
+        public boolean contains(Vector2D point) {
+            return point.getX() >= x &&
+                   point.getX() <= x + width &&
+                   point.getY() >= y &&
+                   point.getY() <= y + height;
+        }
+
+        public boolean intersectsCircle(Vector2D center, float radius) {
+            double closestX = Math.max(x, Math.min(center.getX(), x + width));
+            double closestY = Math.max(y, Math.min(center.getY(), y + height));
+
+            double distanceX = center.getX() - closestX;
+            double distanceY = center.getY() - closestY;
+
+            return (distanceX * distanceX + distanceY * distanceY) <= (radius * radius);
+        }
+    }
+
+    public QuadTree() {
+        this(DEFAULT_MAX_OBJECTS, DEFAULT_MAX_LEVELS);
+    }
+
+    public QuadTree(int maxObjects, int maxLevels) {
+        this(null, maxObjects, maxLevels);
+    }
+
+    public QuadTree(Rectangle bounds) {
+        this(bounds, DEFAULT_MAX_OBJECTS, DEFAULT_MAX_LEVELS);
+    }
+
+    public QuadTree(Rectangle bounds, int maxObjects, int maxLevels) {
+        if (maxObjects < 1 || maxLevels < 0) {
+            throw new IllegalArgumentException("Leaf capacity must be >= 1 and depth >= 0");
+        }
+        this.bounds = bounds;
+        this.maxObjects = maxObjects;
+        this.maxLevels = maxLevels;
+        if (bounds != null) {
+            setRoot(bounds.x, bounds.y, bounds.width, bounds.height);
+        }
+        allocateNodes(64);
+        clear();
+    }
+
+
+    private void setRoot(double x, double y, double width, double height) {
+        rootX = x;
+        rootY = y;
+        rootWidth = width;
+        rootHeight = height;
+    }
+
+
+    // Bounding square of the bodies, nudged out a little so the max edge sits inside
+    private void fitRoot() {
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < store.size(); i++) {
+            minX = Math.min(minX, store.x[i]);
+            minY = Math.min(minY, store.y[i]);
+            maxX = Math.max(maxX, store.x[i]);
+            maxY = Math.max(maxY, store.y[i]);
+        }
+        if (store.size() == 0) {
+            setRoot(0, 0, 1, 1);
+            return;
+        }
+        double side = Math.max(Math.max(maxX - minX, maxY - minY), 1e-9) * 1.0001;
+        setRoot(minX, minY, side, side);
+    }
+
+
+    private void allocateNodes(int capacity) {
+        nodeX = new double[capacity];
+        nodeY = new double[capacity];
+        nodeWidth = new double[capacity];
+        nodeHeight = new double[capacity];
+        level = new int[capacity];
+        firstChild = new int[capacity];
+        head = new int[capacity];
+        size = new int[capacity];
+        totalMass = new double[capacity];
+        centerX = new double[capacity];
+        centerY = new double[capacity];
+    }
+
+
+    private void growNodes(int capacity) {
+        nodeX = Arrays.copyOf(nodeX, capacity);
+        nodeY = Arrays.copyOf(nodeY, capacity);
+        nodeWidth = Arrays.copyOf(nodeWidth, capacity);
+        nodeHeight = Arrays.copyOf(nodeHeight, capacity);
+        level = Arrays.copyOf(level, capacity);
+        firstChild = Arrays.copyOf(firstChild, capacity);
+        head = Arrays.copyOf(head, capacity);
+        size = Arrays.copyOf(size, capacity);
+        totalMass = Arrays.copyOf(totalMass, capacity);
+        centerX = Arrays.copyOf(centerX, capacity);
+        centerY = Arrays.copyOf(centerY, capacity);
+    }
+
+
+    // Drops every node but the root, keeps the pool
+    public void clear() {
+        nodeCount = 0;
+        maxRadius = 0;
+        newNode(rootX, rootY, rootWidth, rootHeight, 0);
+    }
+
+
+    private int newNode(double x, double y, double width, double height, int nodeLevel) {
+        if (nodeCount == nodeX.length) {
+            growNodes(nodeCount * 2);
+        }
+        int n = nodeCount++;
+        nodeX[n] = x;
+        nodeY[n] = y;
+        nodeWidth[n] = width;
+        nodeHeight[n] = height;
+        level[n] = nodeLevel;
+        firstChild[n] = NONE;
+        head[n] = NONE;
+        size[n] = 0;
+        totalMass[n] = 0;
+        centerX[n] = 0;
+        centerY[n] = 0;
+        return n;
+    }
+
+
+    // Rebuilds the tree from every body in the store: structural inserts
+    // first, then a single aggregation pass for the monopoles
+    @Override
+    public void build(ParticleStore store) {
+        this.store = store;
+        if (bounds == null) {
+            fitRoot();
+        }
+        clear();
+        if (next.length < store.capacity()) {
+            next = new int[store.capacity()];
+        }
+
+        for (int i = 0; i < store.size(); i++) {
+            insert(i);
+        }
+
+        updateMassAndCenter();
+    }
+
+
+    @Override
+    public void refreshMassAndCenter() {
+        updateMassAndCenter();
+    }
+
+
+    // Bottom up monopole pass. Children are always allocated after their
+    // parent, so walking the pool backwards visits every child before its
+    // parent and each node is summed exactly once
+    private void updateMassAndCenter() {
+        for (int n = nodeCount - 1; n >= 0; n--) {
+            double m = 0;
+            double mx = 0;
+            double my = 0;
+
+            if (firstChild[n] == NONE) {
+                for (int j = head[n]; j != NONE; j = next[j]) {
+                    double bodyMass = store.mass[j];
+                    m += bodyMass;
+                    mx += bodyMass * store.x[j];
+                    my += bodyMass * store.y[j];
+                }
+            }
+            else {
+                for (int c = firstChild[n]; c < firstChild[n] + 4; c++) {
+                    m += totalMass[c];
+                    mx += totalMass[c] * centerX[c];
+                    my += totalMass[c] * centerY[c];
+                }
+            }
+
+            totalMass[n] = m;
+            if (m > 0) {
+                centerX[n] = mx / m;
+                centerY[n] = my / m;
+            }
+        }
+    }
+
+
+    private void split(int node) {
+        double subWidth = nodeWidth[node] / 2;
+        double subHeight = nodeHeight[node] / 2;
+        double x = nodeX[node];
+        double y = nodeY[node];
+        int childLevel = level[node] + 1;
+
+        // Children are allocated back to back so only the first index is stored
+        int first = newNode(x + subWidth, y, subWidth, subHeight, childLevel);
+        newNode(x, y, subWidth, subHeight, childLevel);
+        newNode(x, y + subHeight, subWidth, subHeight, childLevel);
+        newNode(x + subWidth, y + subHeight, subWidth, subHeight, childLevel);
+        firstChild[node] = first;
+    }
+
+
+    // Quadrant of (x, y) inside node, points on a midpoint go right / down
+    private int getIndex(int node, double x, double y) {
+        double verticalMidpoint = nodeX[node] + (nodeWidth[node] / 2);
+        double horizontalMidpoint = nodeY[node] + (nodeHeight[node] / 2);
+
+        boolean topQuadrant = y < horizontalMidpoint;
+
+        if (x < verticalMidpoint) {
+            return topQuadrant ? 1 : 2;
+        }
+        return topQuadrant ? 0 : 3;
+    }
+
+
+    private void insert(int i) {
+        maxRadius = Math.max(maxRadius, store.radius[i]);
+        insert(ROOT, i);
+    }
+
+
+    private void insert(int node, int i) {
+        double x = store.x[i];
+        double y = store.y[i];
+
+        // Structure only, mass and center of mass come from updateMassAndCenter()
+        while (firstChild[node] != NONE) {
+            node = firstChild[node] + getIndex(node, x, y);
+        }
+
+        next[i] = head[node];
+        head[node] = i;
+        size[node]++;
+
+        if (size[node] > maxObjects && level[node] < maxLevels) {
+            split(node);
+
+            // Push the node's bodies down a level
+            int j = head[node];
+            head[node] = NONE;
+            size[node] = 0;
+            while (j != NONE) {
+                int following = next[j];
+                insert(firstChild[node] + getIndex(node, store.x[j], store.y[j]), j);
+                j = following;
+            }
+        }
+    }
+
+
+    // Calls back for every body that could touch body i
+    @Override
+    public void findPotentialCollisions(int i, PairCallback callback) {
+        findPotentialCollisions(ROOT, i, store.radius[i] + maxRadius, callback);
+    }
+
+
+    private void findPotentialCollisions(int node, int i, double reach, PairCallback callback) {
+        if (!intersectsCircle(node, store.x[i], store.y[i], reach)) {
+            return;
+        }
+
+        if (firstChild[node] != NONE) {
+            for (int c = firstChild[node]; c < firstChild[node] + 4; c++) {
+                findPotentialCollisions(c, i, reach, callback);
+            }
+            return;
+        }
+
+        for (int j = head[node]; j != NONE; j = next[j]) {
+            if (j != i) {
+                callback.processPair(i, j);
+            }
+        }
+    }
+
+
+    private boolean intersectsCircle(int node, double cx, double cy, double radius) {
+        double closestX = Math.max(nodeX[node], Math.min(cx, nodeX[node] + nodeWidth[node]));
+        double closestY = Math.max(nodeY[node], Math.min(cy, nodeY[node] + nodeHeight[node]));
+
+        double distanceX = cx - closestX;
+        double distanceY = cy - closestY;
+
+        return (distanceX * distanceX + distanceY * distanceY) <= (radius * radius);
+    }
+
+
+    // Barnes-Hut: adds the tree's pull on body i straight into its acceleration slot.
+    // The walk only gathers an interaction list, GravityKernel does the math
+    @Override
+    public void accumulateAcceleration(int i, double thetaThreshold, InteractionList list) {
+        list.clear();
+        collectInteractions(ROOT, i, thetaThreshold, list);
+        GravityKernel.accumulate(store.x[i], store.y[i], list.x, list.y, list.m, 0, list.size,
+                store.ax, store.ay, i);
+    }
+
+
+    private void collectInteractions(int node, int i, double thetaThreshold, InteractionList list) {
+        if (totalMass[node] == 0) {
+            return;  // Empty node, no pull
+        }
+
+        double dx = centerX[node] - store.x[i];
+        double dy = centerY[node] - store.y[i];
+        double distance = Math.sqrt(dx * dx + dy * dy);
+
+        // Check if this node can be approximated
+        if ((nodeWidth[node] / distance) < thetaThreshold) {
+            // Treat the node as a single mass
+            list.add(centerX[node], centerY[node], totalMass[node]);
+        }
+        else if (firstChild[node] != NONE) {
+            // Recursively gather from child nodes
+            for (int c = firstChild[node]; c < firstChild[node] + 4; c++) {
+                collectInteractions(c, i, thetaThreshold, list);
+            }
+        }
+        else {
+            // Leaf bodies go in one by one, the kernel skips body i itself
+            for (int j = head[node]; j != NONE; j = next[j]) {
+                list.add(store.x[j], store.y[j], store.mass[j]);
+            }
+        }
+    }
+
+
+    // Point masses one body interacts with, reused between bodies and frames
+    public static class InteractionList {
+        double[] x = new double[64];
+        double[] y = new double[64];
+        double[] m = new double[64];
+        int size;
+
+        void clear() {
+            size = 0;
+        }
+
+        void add(double px, double py, double mass) {
+            if (size == x.length) {
+                x = Arrays.copyOf(x, size * 2);
+                y = Arrays.copyOf(y, size * 2);
+                m = Arrays.copyOf(m, size * 2);
+            }
+            x[size] = px;
+            y[size] = py;
+            m[size] = mass;
+            size++;
+        }
+    }
+
+
+
+    public double getBoundsWidth() {
+        return rootWidth;
+    }
+
+    public double getBoundsHeight() {
+        return rootHeight;
+    }
+
+    public double getTotalMass() {
+        return totalMass[ROOT];
+    }
+
+    public Vector2D getCenterOfMass() {
+        return new Vector2D(centerX[ROOT], centerY[ROOT]);
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+}
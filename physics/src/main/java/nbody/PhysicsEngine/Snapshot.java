@@ -0,0 +1,54 @@
+package nbody.PhysicsEngine;
+
+// Positions and radii of every body at one physics step, as handed from the
+// physics thread to the renderer. Readers only get getters; the buffer is
+// recycled by the physics thread once the reader has moved on to a newer one.
+public final class Snapshot {
+    private double[] x = new double[0];
+    private double[] y = new double[0];
+    private float[] radius = new float[0];
+    private int count;
+    private double time;
+    private long step;
+
+
+    void copyFrom(ParticleStore store, double time, long step) {
+        count = store.size();
+        if (x.length < count) {
+            x = new double[store.capacity()];
+            y = new double[store.capacity()];
+            radius = new float[store.capacity()];
+        }
+        System.arraycopy(store.x, 0, x, 0, count);
+        System.arraycopy(store.y, 0, y, 0, count);
+        System.arraycopy(store.radius, 0, radius, 0, count);
+        this.time = time;
+        this.step = step;
+    }
+
+
+    public int size() {
+        return count;
+    }
+
+    public double getX(int i) {
+        return x[i];
+    }
+
+    public double getY(int i) {
+        return y[i];
+    }
+
+    public float getRadius(int i) {
+        return radius[i];
+    }
+
+    // Simulated seconds at this step
+    public double getTime() {
+        return time;
+    }
+
+    public long getStep() {
+        return step;
+    }
+}
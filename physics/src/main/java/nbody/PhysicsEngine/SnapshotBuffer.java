@@ -0,0 +1,38 @@
+package nbody.PhysicsEngine;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Lock free hand-off of snapshots from one writer thread to one reader thread.
+// Three buffers: the writer fills its back buffer and swaps it with the shared
+// ready slot, the reader swaps the ready slot with its front buffer when there
+// is something new. Neither side ever waits or touches a buffer the other owns,
+// and nothing is allocated once the buffers have grown to the body count.
+final class SnapshotBuffer {
+    private static final int INDEX = 3;
+    private static final int FRESH = 4;    // the ready slot holds a snapshot the reader has not taken
+
+    private final Snapshot[] buffers = { new Snapshot(), new Snapshot(), new Snapshot() };
+    private final AtomicInteger ready = new AtomicInteger(1);
+    private int back = 0;      // writer thread only
+    private int front = 2;     // reader thread only
+
+
+    // The buffer the writer may fill next
+    Snapshot back() {
+        return buffers[back];
+    }
+
+
+    void publish() {
+        back = ready.getAndSet(back | FRESH) & INDEX;
+    }
+
+
+    // The newest published snapshot, valid until the next acquire()
+    Snapshot acquire() {
+        if ((ready.get() & FRESH) != 0) {
+            front = ready.getAndSet(front) & INDEX;
+        }
+        return buffers[front];
+    }
+}
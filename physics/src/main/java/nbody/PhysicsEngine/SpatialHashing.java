@@ -0,0 +1,181 @@
+package nbody.PhysicsEngine;
+
+import java.util.Arrays;
+
+// Uniform grid broadphase on flat int arrays.
+// Cells are as wide as the largest body, so anything touching a body sits in
+// its own cell or one of the 8 around it. Bodies are counting sorted by cell:
+// cellStart[c] .. cellStart[c + 1] - 1 index into sorted[], which holds the
+// store indices of the bodies in cell c. Every cell is then checked against
+// itself and 4 of its neighbours (right, and the three below) so each pair
+// comes up exactly once.
+public class SpatialHashing {
+    // Keeps the grid O(N) when a few bodies are spread over a huge area,
+    // cells get wider instead
+    private static final int MIN_CELLS = 64;
+    private static final int CELLS_PER_BODY = 2;
+
+    private ParticleStore store;
+    private int count;
+
+    private double minX;
+    private double minY;
+    private double cellSize;
+    private int columns;
+    private int rows;
+
+    private int[] cellOf = new int[0];     // cell of each body
+    private int[] sorted = new int[0];     // body indices grouped by cell
+    private int[] cellStart = new int[1];  // prefix sums of the cell counts, length cells + 1
+
+
+    public void build(ParticleStore store) {
+        build(store, 0);
+    }
+
+    // Cells widened by margin, so pairs up to margin apart are still found
+    public void build(ParticleStore store, double margin) {
+        this.store = store;
+        count = store.size();
+        if (cellOf.length < count) {
+            cellOf = new int[store.capacity()];
+            sorted = new int[store.capacity()];
+        }
+        if (count == 0) {
+            columns = rows = 0;
+            return;
+        }
+
+        // Live bounding box and the widest body
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        float maxRadius = 0;
+        minX = Double.POSITIVE_INFINITY;
+        minY = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < count; i++) {
+            minX = Math.min(minX, store.x[i]);
+            minY = Math.min(minY, store.y[i]);
+            maxX = Math.max(maxX, store.x[i]);
+            maxY = Math.max(maxY, store.y[i]);
+            maxRadius = Math.max(maxRadius, store.radius[i]);
+        }
+        double width = Math.max(maxX - minX, 1e-9);
+        double height = Math.max(maxY - minY, 1e-9);
+
+        cellSize = Math.max(2.0 * maxRadius + margin, 1e-9);
+        long cellLimit = Math.max(MIN_CELLS, (long) CELLS_PER_BODY * count);
+        if ((width / cellSize + 1) * (height / cellSize + 1) > cellLimit) {
+            cellSize = Math.max(cellSize, Math.sqrt(width * height / cellLimit) * 1.01);
+            while ((width / cellSize + 1) * (height / cellSize + 1) > cellLimit) {
+                cellSize *= 1.25;
+            }
+        }
+        columns = (int) (width / cellSize) + 1;
+        rows = (int) (height / cellSize) + 1;
+        int cells = columns * rows;
+        if (cellStart.length < cells + 1) {
+            cellStart = new int[Math.max(cells + 1, cellStart.length * 2)];
+        }
+
+        // Counting sort: count, exclusive prefix sum, scatter
+        Arrays.fill(cellStart, 0, cells + 1, 0);
+        for (int i = 0; i < count; i++) {
+            int cx = (int) ((store.x[i] - minX) / cellSize);
+            int cy = (int) ((store.y[i] - minY) / cellSize);
+            int c = cy * columns + cx;
+            cellOf[i] = c;
+            cellStart[c + 1]++;
+        }
+        for (int c = 0; c < cells; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        for (int i = 0; i < count; i++) {
+            sorted[cellStart[cellOf[i]]++] = i;
+        }
+        // The scatter moved every start up to the next cell's start, shift them back
+        for (int c = cells; c > 0; c--) {
+            cellStart[c] = cellStart[c - 1];
+        }
+        cellStart[0] = 0;
+    }
+
+
+    // Calls back once for every pair of bodies in the same or adjacent cells
+    public void processCollisions(QuadTree.PairCallback callback) {
+        for (int cy = 0; cy < rows; cy++) {
+            for (int cx = 0; cx < columns; cx++) {
+                processCell(cx, cy, callback);
+            }
+        }
+    }
+
+
+    // Same pairs as processCollisions, spread over the worker pool.
+    // Rows are the unit of work, each one swept left to right by one thread.
+    // Row cy only reaches rows cy and cy + 1, so rows 2 apart never share a
+    // body: the even rows are resolved together without locks, then the odd
+    // ones. The phase order is fixed, so the result does not depend on the
+    // thread count.
+    public void processCollisionsParallel(QuadTree.PairCallback callback) {
+        for (int phase = 0; phase < 2; phase++) {
+            int firstRow = phase;
+            Parallel.forRange(0, (rows - firstRow + 1) / 2, 1, (from, to) -> {
+                for (int r = from; r < to; r++) {
+                    int cy = firstRow + 2 * r;
+                    for (int cx = 0; cx < columns; cx++) {
+                        processCell(cx, cy, callback);
+                    }
+                }
+            });
+        }
+    }
+
+
+    // Pairs inside cell (cx, cy) and with its right and three lower neighbours
+    private void processCell(int cx, int cy, QuadTree.PairCallback callback) {
+        int c = cy * columns + cx;
+        int from = cellStart[c];
+        int to = cellStart[c + 1];
+        if (from == to) {
+            return;
+        }
+
+        for (int a = from; a < to; a++) {
+            for (int b = a + 1; b < to; b++) {
+                callback.processPair(sorted[a], sorted[b]);
+            }
+        }
+
+        if (cx + 1 < columns) {
+            processCells(from, to, c + 1, callback);
+        }
+        if (cy + 1 < rows) {
+            if (cx > 0) {
+                processCells(from, to, c + columns - 1, callback);
+            }
+            processCells(from, to, c + columns, callback);
+            if (cx + 1 < columns) {
+                processCells(from, to, c + columns + 1, callback);
+            }
+        }
+    }
+
+
+    private void processCells(int from, int to, int other, QuadTree.PairCallback callback) {
+        int otherFrom = cellStart[other];
+        int otherTo = cellStart[other + 1];
+        for (int a = from; a < to; a++) {
+            for (int b = otherFrom; b < otherTo; b++) {
+                callback.processPair(sorted[a], sorted[b]);
+            }
+        }
+    }
+
+
+    public int getCellCount() {
+        return columns * rows;
+    }
+
+    public double getCellSize() {
+        return cellSize;
+    }
+}
@@ -0,0 +1,97 @@
+package nbody.PhysicsEngine;
+
+// One spatial tree per step, shared by the collision and gravity phases.
+// The tree is rebuilt only when the store's generation moved on (bodies were
+// integrated, added or removed). Collisions and boundary clamping just nudge
+// bodies, which the owner reports with markNudged():
+//   - the collision broadphase needs exact node bounds, so it rebuilds after a nudge
+//   - Barnes-Hut only needs the mass moments to be current, so it refreshes
+//     those and keeps the structure, a body sitting slightly outside its node
+//     only changes the opening test a little
+public class SpatialIndex {
+    private SpatialTree tree;
+    private ParticleStore store;
+    private int builtGeneration;
+    private boolean built;
+    private boolean nudged;
+
+    private long builds;
+    private long refreshes;
+    private long reuses;
+
+
+    public SpatialIndex(SpatialTree tree) {
+        this.tree = tree;
+    }
+
+
+    public void setTree(SpatialTree tree) {
+        this.tree = tree;
+        built = false;
+    }
+
+    public SpatialTree getTree() {
+        return tree;
+    }
+
+
+    // Bodies were moved a little (collision response, clamping) since the last build
+    public void markNudged() {
+        nudged = true;
+    }
+
+
+    public SpatialTree forCollisions(ParticleStore store) {
+        if (isStale(store) || nudged) {
+            rebuild(store);
+        }
+        else {
+            reuses++;
+        }
+        return tree;
+    }
+
+
+    public SpatialTree forGravity(ParticleStore store) {
+        if (isStale(store)) {
+            rebuild(store);
+        }
+        else if (nudged) {
+            tree.refreshMassAndCenter();
+            nudged = false;
+            refreshes++;
+        }
+        else {
+            reuses++;
+        }
+        return tree;
+    }
+
+
+    private boolean isStale(ParticleStore store) {
+        return !built || store != this.store || store.getGeneration() != builtGeneration;
+    }
+
+
+    private void rebuild(ParticleStore store) {
+        tree.build(store);
+        this.store = store;
+        builtGeneration = store.getGeneration();
+        built = true;
+        nudged = false;
+        builds++;
+    }
+
+
+    public long getBuildCount() {
+        return builds;
+    }
+
+    public long getRefreshCount() {
+        return refreshes;
+    }
+
+    public long getReuseCount() {
+        return reuses;
+    }
+}
@@ -0,0 +1,19 @@
+package nbody.PhysicsEngine;
+
+// What GravityManager and CollisionManager need from a tree over a ParticleStore.
+// QuadTree builds by pointer style inserts, MortonQuadTree by sorting Z-curve keys.
+public interface SpatialTree {
+
+    // Rebuilds the tree (structure plus mass / center of mass) from every body in the store
+    void build(ParticleStore store);
+
+    // Recomputes mass / center of mass from the bodies' current positions but
+    // keeps the structure, for when bodies have only been nudged since build()
+    void refreshMassAndCenter();
+
+    // Adds the Barnes-Hut pull on body i into its acceleration slot
+    void accumulateAcceleration(int i, double thetaThreshold, QuadTree.InteractionList list);
+
+    // Calls back for every body that could touch body i
+    void findPotentialCollisions(int i, QuadTree.PairCallback callback);
+}
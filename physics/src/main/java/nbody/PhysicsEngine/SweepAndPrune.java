@@ -0,0 +1,153 @@
+package nbody.PhysicsEngine;
+
+import java.util.Arrays;
+
+// Sort and sweep broadphase along x.
+// The bodies stay sorted by the left edge of their x interval between steps.
+// They only move a little per substep, so re-sorting with insertion sort is
+// close to linear. The sweep then walks the sorted list and pairs each body
+// with the following ones until their left edges pass its right edge, checking
+// the y intervals before calling back.
+public class SweepAndPrune {
+    private ParticleStore store;
+    private int count;
+
+    // order[k] is the store index of the k-th body along x, low / high its x interval
+    private int[] order = new int[0];
+    private double[] low = new double[0];
+    private double[] high = new double[0];
+
+    // Merge sort scratch for a full re-sort
+    private int[] orderScratch = new int[0];
+    private double[] lowScratch = new double[0];
+
+    private long shifts;   // insertion sort moves in the last update
+
+
+    public void update(ParticleStore store) {
+        int n = store.size();
+        boolean rebuild = store != this.store || n < count;
+        this.store = store;
+        ensureCapacity(n);
+
+        if (rebuild) {
+            count = 0;
+        }
+        // New bodies go on the end, the sort moves them into place
+        for (int i = count; i < n; i++) {
+            order[i] = i;
+        }
+        int added = n - count;
+        count = n;
+
+        for (int k = 0; k < n; k++) {
+            int i = order[k];
+            low[k] = store.x[i] - store.radius[i];
+        }
+
+        // Anything more than a few new bodies would make insertion sort quadratic
+        if (added > 16) {
+            mergeSort();
+        }
+        else {
+            insertionSort();
+        }
+
+        for (int k = 0; k < n; k++) {
+            int i = order[k];
+            high[k] = store.x[i] + store.radius[i];
+        }
+    }
+
+
+    private void insertionSort() {
+        shifts = 0;
+        for (int k = 1; k < count; k++) {
+            double key = low[k];
+            int body = order[k];
+            int m = k - 1;
+            while (m >= 0 && low[m] > key) {
+                low[m + 1] = low[m];
+                order[m + 1] = order[m];
+                m--;
+            }
+            low[m + 1] = key;
+            order[m + 1] = body;
+            shifts += k - 1 - m;
+        }
+    }
+
+
+    // Bottom up merge sort of (low, order), stable so equal keys keep their order
+    private void mergeSort() {
+        int[] srcOrder = order, dstOrder = orderScratch;
+        double[] srcLow = low, dstLow = lowScratch;
+        for (int width = 1; width < count; width *= 2) {
+            for (int from = 0; from < count; from += 2 * width) {
+                int mid = Math.min(from + width, count);
+                int to = Math.min(from + 2 * width, count);
+                int a = from, b = mid, k = from;
+                while (a < mid && b < to) {
+                    if (srcLow[b] < srcLow[a]) {
+                        dstLow[k] = srcLow[b];
+                        dstOrder[k++] = srcOrder[b++];
+                    }
+                    else {
+                        dstLow[k] = srcLow[a];
+                        dstOrder[k++] = srcOrder[a++];
+                    }
+                }
+                while (a < mid) {
+                    dstLow[k] = srcLow[a];
+                    dstOrder[k++] = srcOrder[a++];
+                }
+                while (b < to) {
+                    dstLow[k] = srcLow[b];
+                    dstOrder[k++] = srcOrder[b++];
+                }
+            }
+            int[] t = srcOrder; srcOrder = dstOrder; dstOrder = t;
+            double[] d = srcLow; srcLow = dstLow; dstLow = d;
+        }
+        order = srcOrder;
+        orderScratch = dstOrder;
+        low = srcLow;
+        lowScratch = dstLow;
+        shifts = count;
+    }
+
+
+    // Calls back once for every pair whose x and y intervals overlap
+    public void processCollisions(QuadTree.PairCallback callback) {
+        double[] y = store.y;
+        float[] radius = store.radius;
+        for (int k = 0; k < count; k++) {
+            int i = order[k];
+            double right = high[k];
+            for (int m = k + 1; m < count && low[m] < right; m++) {
+                int j = order[m];
+                double reach = radius[i] + radius[j];
+                if (Math.abs(y[i] - y[j]) < reach) {
+                    callback.processPair(i, j);
+                }
+            }
+        }
+    }
+
+
+    private void ensureCapacity(int n) {
+        if (order.length < n) {
+            int capacity = store.capacity();
+            order = Arrays.copyOf(order, capacity);
+            low = new double[capacity];
+            high = new double[capacity];
+            orderScratch = new int[capacity];
+            lowScratch = new double[capacity];
+        }
+    }
+
+
+    public long getLastShiftCount() {
+        return shifts;
+    }
+}
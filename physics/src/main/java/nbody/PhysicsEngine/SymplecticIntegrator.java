@@ -0,0 +1,138 @@
+package nbody.PhysicsEngine;
+
+import java.util.Arrays;
+
+// Base for the kick / drift integrators that carry their own velocities.
+// Velocities live here between frames instead of being rebuilt from x - oldX,
+// which keeps them exact. A body whose position was changed from outside since
+// the last step (collisions, boundary clamping) gets the velocity the Verlet
+// store implies for it, (x - oldX) / dt, so position based corrections still
+// change its motion like they do under Verlet. oldX is written back at the end
+// of every step for the same reason.
+//
+// The last gravity evaluation of a step is reused as the first of the next
+// one. Anything in ax / ay when step() is called is applied as a constant
+// acceleration for the whole frame.
+public abstract class SymplecticIntegrator implements Integrator {
+    private ParticleStore store;
+    private GravitySolver gravity;
+    private int count;
+    private float lastDt;
+    private boolean primed;
+
+    private double[] vx = new double[0];
+    private double[] vy = new double[0];
+    private double[] gravityX = new double[0];
+    private double[] gravityY = new double[0];
+    private double[] externalX = new double[0];
+    private double[] externalY = new double[0];
+    private double[] endX = new double[0];     // positions this integrator left the bodies at
+    private double[] endY = new double[0];
+
+    private long forceEvaluations;
+
+
+    @Override
+    public void step(ParticleStore store, float dt, GravitySolver gravity) {
+        int n = store.size();
+        if (store != this.store || n != count) {
+            reset(store);
+        }
+        this.gravity = gravity;
+        double velocityScale = 1.0 / (lastDt > 0 ? lastDt : dt);
+
+        for (int i = 0; i < n; i++) {
+            if (!primed || store.x[i] != endX[i] || store.y[i] != endY[i]) {
+                vx[i] = (store.x[i] - store.oldX[i]) * velocityScale;
+                vy[i] = (store.y[i] - store.oldY[i]) * velocityScale;
+            }
+            externalX[i] = store.ax[i];
+            externalY[i] = store.ay[i];
+        }
+        if (!primed) {
+            computeGravity();
+        }
+
+        advance(dt);
+
+        for (int i = 0; i < n; i++) {
+            store.oldX[i] = store.x[i] - vx[i] * dt;
+            store.oldY[i] = store.y[i] - vy[i] * dt;
+            endX[i] = store.x[i];
+            endY[i] = store.y[i];
+            store.lastAx[i] = gravityX[i] + externalX[i];
+            store.lastAy[i] = gravityY[i] + externalY[i];
+            store.ax[i] = 0;
+            store.ay[i] = 0;
+        }
+        lastDt = dt;
+        primed = true;
+    }
+
+
+    // One step of the scheme from kicks, drifts and force evaluations
+    protected abstract void advance(float dt);
+
+
+    protected final void kick(double time) {
+        for (int i = 0; i < count; i++) {
+            vx[i] += (gravityX[i] + externalX[i]) * time;
+            vy[i] += (gravityY[i] + externalY[i]) * time;
+        }
+    }
+
+
+    protected final void drift(double time) {
+        store.advanceGeneration();
+        double[] x = store.x;
+        double[] y = store.y;
+        for (int i = 0; i < count; i++) {
+            x[i] += vx[i] * time;
+            y[i] += vy[i] * time;
+        }
+    }
+
+
+    // Gravity at the current positions, the solvers add into ax / ay
+    protected final void computeGravity() {
+        Arrays.fill(store.ax, 0, count, 0);
+        Arrays.fill(store.ay, 0, count, 0);
+        gravity.computeForces(store);
+        System.arraycopy(store.ax, 0, gravityX, 0, count);
+        System.arraycopy(store.ay, 0, gravityY, 0, count);
+        forceEvaluations++;
+    }
+
+
+    private void reset(ParticleStore store) {
+        this.store = store;
+        count = store.size();
+        lastDt = 0;
+        primed = false;
+        int capacity = store.capacity();
+        if (vx.length < capacity) {
+            vx = new double[capacity];
+            vy = new double[capacity];
+            gravityX = new double[capacity];
+            gravityY = new double[capacity];
+            externalX = new double[capacity];
+            externalY = new double[capacity];
+            endX = new double[capacity];
+            endY = new double[capacity];
+        }
+    }
+
+
+    public double getVelocityX(int i) {
+        return vx[i];
+    }
+
+    public double getVelocityY(int i) {
+        return vy[i];
+    }
+
+    // Whole-system gravity evaluations so far
+    public long getForceEvaluations() {
+        return forceEvaluations;
+    }
+}
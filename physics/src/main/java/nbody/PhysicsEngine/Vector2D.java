@@ -0,0 +1,91 @@
+package nbody.PhysicsEngine;
+
+// Immutable 2D vector for the object style API (VerletObject, tracking).
+// Same method names as javafx.geometry.Point2D, which the engine used to
+// depend on, so the physics can run without JavaFX on the module path.
+// The hot loops never touch it, they work on ParticleStore's arrays.
+public final class Vector2D {
+    public static final Vector2D ZERO = new Vector2D(0, 0);
+
+    private final double x;
+    private final double y;
+
+
+    public Vector2D(double x, double y) {
+        this.x = x;
+        this.y = y;
+    }
+
+
+    public double getX() {
+        return x;
+    }
+
+    public double getY() {
+        return y;
+    }
+
+
+    public Vector2D add(Vector2D other) {
+        return new Vector2D(x + other.x, y + other.y);
+    }
+
+    public Vector2D add(double dx, double dy) {
+        return new Vector2D(x + dx, y + dy);
+    }
+
+    public Vector2D subtract(Vector2D other) {
+        return new Vector2D(x - other.x, y - other.y);
+    }
+
+    public Vector2D subtract(double dx, double dy) {
+        return new Vector2D(x - dx, y - dy);
+    }
+
+    public Vector2D multiply(double factor) {
+        return new Vector2D(x * factor, y * factor);
+    }
+
+
+    public double magnitude() {
+        return Math.hypot(x, y);
+    }
+
+    // Unit vector in the same direction, the zero vector stays zero
+    public Vector2D normalize() {
+        double length = magnitude();
+        return length == 0 ? ZERO : new Vector2D(x / length, y / length);
+    }
+
+    public double distance(Vector2D other) {
+        return Math.hypot(x - other.x, y - other.y);
+    }
+
+    public double distance(double px, double py) {
+        return Math.hypot(x - px, y - py);
+    }
+
+    public double dotProduct(Vector2D other) {
+        return x * other.x + y * other.y;
+    }
+
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof Vector2D)) {
+            return false;
+        }
+        Vector2D other = (Vector2D) o;
+        return Double.compare(x, other.x) == 0 && Double.compare(y, other.y) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Double.hashCode(x) + Double.hashCode(y);
+    }
+
+    @Override
+    public String toString() {
+        return "Vector2D [x = " + x + ", y = " + y + "]";
+    }
+}
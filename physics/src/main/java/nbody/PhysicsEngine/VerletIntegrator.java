@@ -0,0 +1,16 @@
+package nbody.PhysicsEngine;
+
+// The original position Verlet step, velocities are implied by x - oldX
+public class VerletIntegrator implements Integrator {
+
+    @Override
+    public String getName() {
+        return IntegratorType.VERLET.getName();
+    }
+
+    @Override
+    public void step(ParticleStore store, float dt, GravitySolver gravity) {
+        gravity.computeForces(store);
+        store.integrate(dt);
+    }
+}
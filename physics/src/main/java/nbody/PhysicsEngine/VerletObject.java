@@ -0,0 +1,128 @@
+package nbody.PhysicsEngine;
+
+// Index based view of one body in a ParticleStore.
+// The state itself lives in the store's arrays, this just remembers where.
+public class VerletObject {
+    private ParticleStore store;
+    private int index;
+    private boolean standalone;     // still in its own one slot store
+
+    //Initalizers
+    public VerletObject(Vector2D Pos, float rad, float Mass)
+    {
+        // Standalone objects get their own one slot store until a
+        // VerletSystemManger adopts them
+        this.store = new ParticleStore(1);
+        this.index = store.add(Pos.getX(), Pos.getY(), rad, Mass);
+        this.standalone = true;
+    }
+
+
+    //Default
+    public VerletObject()
+    {
+        this(new Vector2D(100.0, 100.0), 10.0f, 1.0f);
+    }
+
+
+    // View onto an existing slot
+    VerletObject(ParticleStore store, int index)
+    {
+        this.store = store;
+        this.index = index;
+    }
+
+
+    // Moves this object's state into another store and points the view there.
+    // Only standalone objects can move, a body already in a system's store
+    // would be left behind in it, still integrated and still pulling on the rest
+    void bind(ParticleStore target) {
+        if (target == store) {
+            return;
+        }
+        if (!standalone) {
+            throw new IllegalStateException("Object already belongs to another system");
+        }
+        index = target.copyFrom(store, index);
+        store = target;
+        standalone = false;
+    }
+
+
+    //Verlet Intergration Update
+    public void update(float dt) {
+        store.integrate(index, dt * dt);
+    }
+
+    // functions you'll prob have to ask me about
+    public void addVelocity(Vector2D force, float dt)
+    {
+        SetPreviousPosition(getOldPosition().subtract(force.multiply(dt)));
+    }
+
+
+    public void SetVelocity(Vector2D force, float dt)
+    {
+        SetPreviousPosition(getPosition().subtract((force.multiply(dt))));
+    }
+
+
+    //Getters & Setters
+    public ParticleStore getStore() { return store; }
+    public int getIndex() { return index; }
+
+    public Vector2D getPosition() { return new Vector2D(store.x[index], store.y[index]); }
+    public Vector2D getOldPosition() { return new Vector2D(store.oldX[index], store.oldY[index]); }
+    public float getRadius() { return store.radius[index]; }
+    public float getMass() { return store.mass[index]; }
+    public Vector2D getAcceleration() { return new Vector2D(store.ax[index], store.ay[index]); }
+    public Vector2D getForce() { return getAcceleration().multiply(getMass()); }
+    // What the last step applied, getAcceleration() is empty again by the time a step is over
+    public Vector2D getAppliedAcceleration() { return new Vector2D(store.lastAx[index], store.lastAy[index]); }
+    public Vector2D getAppliedForce() { return getAppliedAcceleration().multiply(getMass()); }
+
+    public Vector2D getVelo(float dt) { return getPosition().subtract(getOldPosition()).multiply(1.0 / dt); }
+
+    public void SetPosition(Vector2D pos) { store.setPosition(index, pos.getX(), pos.getY()); }
+    public void SetRadius(float r) { store.radius[index] = r; }
+    public void SetMass(float m) { store.mass[index] = m; }
+    public void SetAcceleration(Vector2D a) { store.setAcceleration(index, a.getX(), a.getY()); }
+
+    public void SetPreviousPosition(Vector2D prevPos) {
+        store.setOldPosition(index, prevPos.getX(), prevPos.getY());
+    }
+
+    public void AddAcceleration(Vector2D a) {
+        store.addAcceleration(index, a.getX(), a.getY()); // Accumulate accelerations
+    }
+
+    public void AddAcceleration(double ax, double ay) {
+        store.addAcceleration(index, ax, ay);
+    }
+
+    public void resetAcceleration() {
+        store.setAcceleration(index, 0, 0);
+    }
+
+
+
+    public float getPositionX() {
+        return (float) store.x[index];
+    }
+
+    public float getPositionY() {
+        return (float) store.y[index];
+    }
+
+
+    public void setPositionX(float x) {
+        store.x[index] = x;
+    }
+
+    public void setPositionY(float y) {
+        store.y[index] = y;
+    }
+
+
+
+}
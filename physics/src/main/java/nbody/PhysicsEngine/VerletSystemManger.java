@@ -3,10 +3,9 @@ package nbody.PhysicsEngine;
 import java.util.ArrayList;
 import java.util.List;
 
-import javafx.geometry.Point2D;
-
 public class VerletSystemManger {
         private List<VerletObject> objects;
+        private final ParticleStore store;
         private long lastSpawnTime = System.nanoTime();
         private final int maxObjectCount;
         private final double spawnDelay;
@@ -16,6 +15,7 @@ public class VerletSystemManger {
         //
         public VerletSystemManger(int maxObjectCount, double spawnDelaySeconds) {
             objects = new ArrayList<>();
+            store = new ParticleStore(maxObjectCount);
             this.maxObjectCount = maxObjectCount;
             this.spawnDelay = spawnDelaySeconds * 1_000_000_000; // Convert to nanoseconds
         }
@@ -23,13 +23,15 @@ public class VerletSystemManger {
     //Default initializer 
     public VerletSystemManger() {
         objects = new ArrayList<>();
+        store = new ParticleStore();
         this.spawnDelay = 0; // Convert to nanoseconds
         this.maxObjectCount = 0;
 
     }
 
 
-    public VerletSystemManger addObject(VerletObject object, Point2D Pos,float mass, float radius) {
+    public VerletSystemManger addObject(VerletObject object, Vector2D Pos,float mass, float radius) {
+        object.bind(store);
         object.SetPosition(Pos);
         object.SetMass(mass);
         object.SetRadius(radius);
@@ -38,16 +40,29 @@ public class VerletSystemManger {
     }
 
     public VerletSystemManger addObject(VerletObject object) {
+        object.bind(store);
         objects.add(object);
         return this;  // Allow method chaining
     }
 
 
+    // Adds a body straight into the store, no Vector2D needed
+    public VerletObject addObject(double x, double y, float radius, float mass) {
+        VerletObject object = new VerletObject(store, store.add(x, y, radius, mass));
+        objects.add(object);
+        return object;
+    }
+
+
 
     public List<VerletObject> getObjects() {
         return objects;
     }
 
+    public ParticleStore getStore() {
+        return store;
+    }
+
 
     private boolean canSpawn(long currentTime) {
         return (currentTime - lastSpawnTime) >= spawnDelay;
@@ -55,19 +70,15 @@ public class VerletSystemManger {
 
 
 
-    public boolean StreamSpawnObject(Point2D spawnpos, float radius){
+    public boolean StreamSpawnObject(Vector2D spawnpos, float radius){
         //Get time  
         long currentTime = System.nanoTime();
-        Point2D initial_speed = new Point2D(100,20); 
+        Vector2D initial_speed = new Vector2D(100,20); 
 
         if( getObjectCount() < maxObjectCount &&  canSpawn(currentTime) ) {
             lastSpawnTime = currentTime;
-            VerletObject object = new VerletObject(spawnpos, radius,5.0f);
+            VerletObject object = addObject(spawnpos.getX(), spawnpos.getY(), radius, 5.0f);
             object.SetVelocity(initial_speed,(float)0.0016);
-
-
-            
-            addObject(object);
             // System.out.println("Object spawned. Count: " + getObjectCount()); // Debug
 
             return true;
@@ -78,6 +89,7 @@ public class VerletSystemManger {
 
     public void clear() {
         objects.clear();
+        store.clear();
     }
 
     public int getObjectCount() {
@@ -0,0 +1,36 @@
+package nbody.PhysicsEngine;
+
+// Yoshida / Forest-Ruth fourth order scheme: three leapfrog steps of
+// w1, w0, w1 times dt, where the negative middle one cancels the third order
+// error. Three force evaluations per step, but the error falls with dt^4, so
+// far longer steps give the same energy error as leapfrog.
+public class YoshidaIntegrator extends SymplecticIntegrator {
+    private static final double CBRT2 = Math.cbrt(2);
+    private static final double W1 = 1 / (2 - CBRT2);
+    private static final double W0 = -CBRT2 / (2 - CBRT2);
+
+    // Kick (c) and drift (d) fractions of dt
+    private static final double C1 = W1 / 2;
+    private static final double C2 = (W0 + W1) / 2;
+    private static final double D1 = W1;
+    private static final double D2 = W0;
+
+    @Override
+    public String getName() {
+        return IntegratorType.YOSHIDA.getName();
+    }
+
+    @Override
+    protected void advance(float dt) {
+        kick(C1 * dt);
+        drift(D1 * dt);
+        computeGravity();
+        kick(C2 * dt);
+        drift(D2 * dt);
+        computeGravity();
+        kick(C2 * dt);
+        drift(D1 * dt);
+        computeGravity();
+        kick(C1 * dt);
+    }
+}
@@ -1,13 +1,9 @@
 package nbody.PhysicsEngine;
 
-import java.util.Vector;
-
-import javafx.geometry.Point2D;
-
 public class simulation {
     private CollisionManager collisionManager;
     private VerletSystemManger systemManager;  // Add system manager
-    private Point2D grav;  // Add gravity vector
+    private Vector2D grav;  // Add gravity vector
     float box_right;
     float box_left;
     float box_top;
@@ -20,9 +16,8 @@ public class simulation {
 
     public simulation(float box_t,float box_l) {
         systemManager = new VerletSystemManger(5000,0.05);
-        Vector<VerletObject> objectVector = new Vector<>(systemManager.getObjects());
-        collisionManager = new CollisionManager(objectVector);
-        grav = new Point2D(0, 150.81);  // Default gravity
+        collisionManager = new CollisionManager(systemManager);
+        grav = new Vector2D(0, 150.81);  // Default gravity
 
         box_top = 10;
         box_l = 10;
@@ -37,9 +32,7 @@ public class simulation {
 
         float step_dt = GetStepDt();
         for (int i = m_sub_steps; i > 0; i--) {
-            //This is prob not the best way to do this lol
-            collisionManager.m_objects = new Vector<>(systemManager.getObjects());
-            collisionManager.quadTreeCollision();
+            collisionManager.solve();
             ApplyGrav();
             applyConstraint(step_dt);
             updateObjects(step_dt);
@@ -48,9 +41,11 @@ public class simulation {
 
 
     public void updateObjects(float dt){
-        for (VerletObject obj : systemManager.getObjects()) {
-            obj.update(dt);
-        }
+        systemManager.getStore().integrate(dt);
+    }
+
+    public void setCollisionSolver(CollisionSolver solver) {
+        collisionManager.setSolver(solver);
     }
 
     public void SpatialHashingCollision(){
@@ -58,35 +53,42 @@ public class simulation {
     }
     
     public void applyConstraint(float dt) {
-        for (VerletObject obj : systemManager.getObjects()) {
-            float currentX = obj.getPositionX();
-            float currentY = obj.getPositionY();
+        ParticleStore store = systemManager.getStore();
+        double[] x = store.x;
+        double[] y = store.y;
+        for (int i = 0; i < store.size(); i++) {
+            float currentX = (float) x[i];
+            float currentY = (float) y[i];
 
             if (currentX > box_right) {
-                obj.setPositionX(box_right);
+                x[i] = box_right;
             } 
             else if (currentX < box_left) {
-                obj.setPositionX(box_left);
+                x[i] = box_left;
             }
             
             if (currentY > box_bottom) {
-                obj.setPositionY(box_bottom);
+                y[i] = box_bottom;
             } 
             else if (currentY < box_top) {
-                obj.setPositionY(box_top);
+                y[i] = box_top;
             }
         }
     }
 
 
-    public void addStream(Point2D spawnpos,float radius){
+    public void addStream(Vector2D spawnpos,float radius){
         systemManager.StreamSpawnObject(spawnpos, radius);
 
     }
 
     public void ApplyGrav(){
-        for (VerletObject obj : systemManager.getObjects()) {
-            obj.AddAcceleration(grav);
+        ParticleStore store = systemManager.getStore();
+        double gx = grav.getX();
+        double gy = grav.getY();
+        for (int i = 0; i < store.size(); i++) {
+            store.ax[i] += gx;
+            store.ay[i] += gy;
         }
     }
 
@@ -109,8 +111,6 @@ public class simulation {
 
     public void addObject(VerletObject object) {
         systemManager.addObject(object);
-        // Update collision manager's object list after adding new object
-        collisionManager.m_objects = new Vector<>(systemManager.getObjects());
     }
 
     public float GetStepDt(){
@@ -0,0 +1,122 @@
+package nbody.headless;
+
+import java.util.Locale;
+import java.util.Random;
+
+import nbody.PhysicsEngine.FastMultipole;
+import nbody.PhysicsEngine.GravityManager;
+import nbody.PhysicsEngine.ParticleStore;
+
+// Times the Fast Multipole solver against the direct sum on the same seeded
+// bodies and reports how far its forces are from the exact ones.
+//
+//   GravityBenchmark [--bodies N,N,...] [--order P] [--repeats R] [--threads N] [--seed S]
+//
+// Each size is warmed up first, then the best of R force evaluations is kept.
+// The error is the RMS of |a_fmm - a_direct| over the RMS of |a_direct|.
+public class GravityBenchmark {
+    private static final String USAGE =
+            "Usage: GravityBenchmark [--bodies N,N,...] [--order P] [--repeats R] [--threads N] [--seed S]";
+
+    public static void main(String[] args) {
+        int[] sizes = {1000, 4000, 16000, 64000};
+        int order = FastMultipole.DEFAULT_ORDER;
+        int repeats = 5;
+        int threads = 0;
+        long seed = 1;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--bodies" -> {
+                        String[] parts = args[++i].split(",");
+                        sizes = new int[parts.length];
+                        for (int k = 0; k < parts.length; k++) {
+                            sizes[k] = Integer.parseInt(parts[k].trim());
+                        }
+                    }
+                    case "--order" -> order = Integer.parseInt(args[++i]);
+                    case "--repeats" -> repeats = Integer.parseInt(args[++i]);
+                    case "--threads" -> threads = Integer.parseInt(args[++i]);
+                    case "--seed" -> seed = Long.parseLong(args[++i]);
+                    default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+                }
+            }
+            if (order < 1 || repeats < 1) {
+                throw new IllegalArgumentException("Order and repeats must be >= 1");
+            }
+            for (int n : sizes) {
+                if (n < 2) {
+                    throw new IllegalArgumentException("Need at least 2 bodies, got " + n);
+                }
+            }
+        }
+        catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            // NumberFormatException is an IllegalArgumentException too
+            System.err.println(e instanceof ArrayIndexOutOfBoundsException ? "Missing option value" : e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+
+        GravityManager.setThreadCount(threads);
+        FastMultipole fastMultipole = new FastMultipole(order, FastMultipole.DEFAULT_LEAF_SIZE);
+        System.out.printf(Locale.ROOT, "order %d, %d threads%n", order, GravityManager.getThreadCount());
+        System.out.printf(Locale.ROOT, "%10s %14s %14s %10s %12s%n", "bodies", "direct ms", "fmm ms", "speedup", "rms error");
+
+        for (int n : sizes) {
+            ParticleStore store = bodies(n, seed);
+            double[] exactX = new double[n];
+            double[] exactY = new double[n];
+
+            double direct = bestOf(repeats, store, () -> GravityManager.computeForcesBruteForce(store));
+            for (int i = 0; i < n; i++) {
+                exactX[i] = store.getAccelX(i);
+                exactY[i] = store.getAccelY(i);
+            }
+            double fmm = bestOf(repeats, store, () -> fastMultipole.computeForces(store));
+
+            double errorSum = 0;
+            double exactSum = 0;
+            for (int i = 0; i < n; i++) {
+                double ex = store.getAccelX(i) - exactX[i];
+                double ey = store.getAccelY(i) - exactY[i];
+                errorSum += ex * ex + ey * ey;
+                exactSum += exactX[i] * exactX[i] + exactY[i] * exactY[i];
+            }
+
+            System.out.printf(Locale.ROOT, "%10d %14.2f %14.2f %9.1fx %12.2e%n",
+                    n, direct, fmm, direct / fmm, Math.sqrt(errorSum / exactSum));
+        }
+        GravityManager.setThreadCount(1);
+    }
+
+
+    // Best wall clock time in ms over the repeats, after as many untimed warm up runs.
+    // Accelerations are cleared before every run, so the store holds the last result
+    private static double bestOf(int repeats, ParticleStore store, Runnable solver) {
+        double best = Double.POSITIVE_INFINITY;
+        for (int r = 0; r < 2 * repeats; r++) {
+            for (int i = 0; i < store.size(); i++) {
+                store.setAcceleration(i, 0, 0);
+            }
+            long start = System.nanoTime();
+            solver.run();
+            long elapsed = System.nanoTime() - start;
+            if (r >= repeats) {
+                best = Math.min(best, elapsed / 1e6);
+            }
+        }
+        return best;
+    }
+
+
+    // Same spread as the GUI spawner, scaled so the density stays put as n grows
+    private static ParticleStore bodies(int n, long seed) {
+        Random random = new Random(seed);
+        double side = 30 * Math.sqrt(n);
+        ParticleStore store = new ParticleStore(n);
+        for (int i = 0; i < n; i++) {
+            store.add(random.nextDouble() * side, random.nextDouble() * side, 1f, 1e12f);
+        }
+        return store;
+    }
+}
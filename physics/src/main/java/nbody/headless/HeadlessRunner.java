@@ -0,0 +1,393 @@
+package nbody.headless;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Random;
+
+import nbody.PhysicsEngine.BlockTimestepIntegrator;
+import nbody.PhysicsEngine.CollisionEngine;
+import nbody.PhysicsEngine.CollisionManager;
+import nbody.PhysicsEngine.GravityEngine;
+import nbody.PhysicsEngine.GravityManager;
+import nbody.PhysicsEngine.GravitySolver;
+import nbody.PhysicsEngine.Integrator;
+import nbody.PhysicsEngine.IntegratorType;
+import nbody.PhysicsEngine.ParticleStore;
+import nbody.PhysicsEngine.VerletSystemManger;
+import nbody.telemetry.BackPressure;
+import nbody.telemetry.TelemetryPipeline;
+import nbody.telemetry.TelemetrySink;
+import nbody.trajectory.TrajectoryFormat;
+import nbody.trajectory.TrajectoryWriter;
+
+// Runs the simulation without a window, for batch runs on machines with no
+// display. Steps back to back as fast as they go and writes body states as
+// CSV or a binary trajectory: the initial and final state, plus every --every
+// steps if given.
+//
+// Bodies are spawned the way the GUI does it, uniformly over a width x height
+// area with the same mass and diameter spread, but from a seeded Random so a
+// run can be repeated exactly.
+public class HeadlessRunner {
+    private static final long OUTPUT_BUFFER_BYTES = 256L << 20;
+
+    private static final String USAGE = String.join("\n",
+            "Usage: nbody-headless [options]",
+            "  --bodies N          number of bodies (default 1000)",
+            "  --steps N           steps to run (default 1000)",
+            "  --dt SECONDS        fixed timestep (default 0.016)",
+            "  --solver NAME       gravity engine: " + String.join(", ", GravityEngine.names()) + " (default Barnes-Hut)",
+            "  --collisions NAME   collision engine: None, " + String.join(", ", CollisionEngine.names()) + " (default None)",
+            "  --integrator NAME   " + String.join(", ", IntegratorType.names()) + " (default Verlet)",
+            "  --threads N         worker threads, 0 for all cores (default 0)",
+            "  --seed N            seed for the initial positions (default 1)",
+            "  --mass M            mean body mass in 1e12 kg (default 1)",
+            "  --mass-variance V   spread of the mass around the mean (default 0)",
+            "  --diameter D        mean body diameter in m (default 2)",
+            "  --diameter-variance V  spread of the diameter around the mean (default 0)",
+            "  --width W           spawn area width (default 800)",
+            "  --height H          spawn area height (default 600)",
+            "  --box               keep bodies inside the spawn area like the GUI window",
+            "  --every K           also write the state every K steps (default 0, off)",
+            "  --output PATH       file for the states (default none, summary only)",
+            "  --format FORMAT     csv, or binary for a trajectory file TrajectoryToCsv can read back",
+            "                      (default binary for paths ending in .traj, csv otherwise)",
+            "  --backpressure P    block, drop or sample when the writer falls behind (default block)",
+            "Names may be given in any case, without spaces or dashes and shortened, e.g. barneshut, yoshida.");
+
+    private int bodies = 1000;
+    private long steps = 1000;
+    private float dt = 0.016f;
+    private String solver = GravityEngine.BARNES_HUT.getName();
+    private String collisions = null;
+    private String integratorName = IntegratorType.VERLET.getName();
+    private int threads = 0;
+    private long seed = 1;
+    private double mass = 1;
+    private double diameter = 2;
+    private double massVariance = 0;
+    private double diameterVariance = 0;
+    private double width = 800;
+    private double height = 600;
+    private boolean box;
+    private long every;
+    private Path output;
+    private String format;
+    private BackPressure backPressure = BackPressure.BLOCK;
+
+
+    public static void main(String[] args) {
+        HeadlessRunner runner = new HeadlessRunner();
+        try {
+            runner.parse(args);
+        }
+        catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+        try {
+            runner.run();
+        }
+        catch (IOException e) {
+            System.err.println("Could not write output: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+
+    void parse(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "--help", "-h" -> {
+                    System.out.println(USAGE);
+                    System.exit(0);
+                }
+                case "--box" -> box = true;
+                case "--bodies" -> bodies = (int) positive(arg, value(args, ++i, arg));
+                case "--steps" -> steps = positive(arg, value(args, ++i, arg));
+                case "--dt" -> dt = (float) positiveDouble(arg, value(args, ++i, arg));
+                case "--solver" -> solver = match(value(args, ++i, arg), GravityEngine.names(), "gravity engine");
+                case "--collisions" -> {
+                    String name = value(args, ++i, arg);
+                    collisions = "none".equalsIgnoreCase(name) ? null : match(name, CollisionEngine.names(), "collision engine");
+                }
+                case "--integrator" -> integratorName = match(value(args, ++i, arg), IntegratorType.names(), "integrator");
+                case "--threads" -> threads = (int) number(arg, value(args, ++i, arg));
+                case "--seed" -> seed = number(arg, value(args, ++i, arg));
+                case "--mass" -> mass = positiveDouble(arg, value(args, ++i, arg));
+                case "--diameter" -> diameter = positiveDouble(arg, value(args, ++i, arg));
+                case "--mass-variance" -> massVariance = nonNegativeDouble(arg, value(args, ++i, arg));
+                case "--diameter-variance" -> diameterVariance = nonNegativeDouble(arg, value(args, ++i, arg));
+                case "--width" -> width = positiveDouble(arg, value(args, ++i, arg));
+                case "--height" -> height = positiveDouble(arg, value(args, ++i, arg));
+                case "--every" -> every = number(arg, value(args, ++i, arg));
+                case "--output", "-o" -> output = Path.of(value(args, ++i, arg));
+                case "--format" -> format = match(value(args, ++i, arg), new String[] { "csv", "binary" }, "format");
+                case "--backpressure" -> backPressure = BackPressure.byName(
+                        match(value(args, ++i, arg), BackPressure.names(), "back-pressure policy"));
+                default -> throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+        if (format == null) {
+            format = output != null && output.toString().endsWith(".traj") ? "binary" : "csv";
+        }
+    }
+
+
+    void run() throws IOException {
+        VerletSystemManger systemManager = new VerletSystemManger();
+        ParticleStore store = systemManager.getStore();
+        spawn(systemManager);
+
+        GravityManager.setThreadCount(threads);
+        GravitySolver gravity = GravityEngine.byName(solver);
+        Integrator integrator = IntegratorType.byName(integratorName);
+        CollisionManager collisionManager = null;
+        if (collisions != null) {
+            collisionManager = new CollisionManager(systemManager);
+            collisionManager.setSolver(CollisionEngine.byName(collisions));
+            collisionManager.setSpatialIndex(GravityManager.getSpatialIndex());
+        }
+
+        System.out.printf(Locale.ROOT, "%d bodies, %d steps of %s s, %s gravity, %s collisions, %s, %d threads%n",
+                bodies, steps, dt, solver, collisions == null ? "no" : collisions, integratorName,
+                GravityManager.getThreadCount());
+
+        // Output is copied into a ring on this thread and written on another,
+        // so the step loop does not wait on formatting or the disk
+        TelemetryPipeline out = null;
+        if (output != null) {
+            TelemetrySink sink = "binary".equals(format) ? new BinaryOutput(output, store, dt) : new CsvOutput(output, store);
+            int width = TrajectoryFormat.valueBlocks(TrajectoryFormat.ALL) * bodies;
+            out = new TelemetryPipeline("output", width, TelemetryPipeline.capacityFor(width, OUTPUT_BUFFER_BYTES),
+                    backPressure, sink);
+            record(out, store, 0);
+        }
+
+        long start = System.nanoTime();
+        for (long step = 1; step <= steps; step++) {
+            integrator.step(store, dt, gravity);
+            if (box && clamp(store)) {
+                GravityManager.getSpatialIndex().markNudged();
+            }
+            if (collisionManager != null) {
+                collisionManager.solve();
+            }
+            if (out != null && (step == steps || (every > 0 && step % every == 0))) {
+                record(out, store, step);
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf(Locale.ROOT, "%.3f s stepping, %.1f steps/s, %.3g body-steps/s%n",
+                seconds, steps / seconds, steps * (double) bodies / seconds);
+        if (out != null) {
+            long done = System.nanoTime();
+            out.close();
+            System.out.printf(Locale.ROOT, "%d states written to %s, %.3f s after the last step, "
+                    + "%.3f s blocked on the writer, %d dropped, %d sampled out%n",
+                    out.getWrittenCount(), output, (System.nanoTime() - done) / 1e9, out.getBlockedNanos() / 1e9,
+                    out.getDroppedCount(), out.getSampledOutCount());
+            if (out.getFailure() != null) {
+                throw new IOException(out.getFailure().getMessage(), out.getFailure());
+            }
+        }
+        if (collisionManager != null) {
+            System.out.println("Collision solver: " + collisionManager.getSolver().getName());
+        }
+        if (GravityEngine.AUTO.equals(solver)) {
+            System.out.println("Gravity solver: " + gravity.getName());
+        }
+        if (integrator instanceof BlockTimestepIntegrator block) {
+            System.out.printf(Locale.ROOT, "Block timesteps: %.2f force updates per body per step (%d with one every tick), "
+                    + "%.3f s of %.3f s stepping in gravity%n",
+                    block.getEvaluationsPerBody(), 1 << block.getMaxLevel(),
+                    block.getGravityNanos() / 1e9, block.getStepNanos() / 1e9);
+        }
+    }
+
+
+    private void record(TelemetryPipeline out, ParticleStore store, long step) {
+        double[] record = out.claim(step, step * (double) dt);
+        if (record != null) {
+            TrajectoryWriter.capture(store, dt, TrajectoryFormat.ALL, record, 0);
+            out.commit();
+        }
+    }
+
+
+    private void spawn(VerletSystemManger systemManager) {
+        Random rand = new Random(seed);
+        systemManager.getStore().ensureCapacity(bodies);
+        for (int i = 0; i < bodies; i++) {
+            double x = rand.nextDouble() * width;
+            double y = rand.nextDouble() * height;
+
+            double randomMass = (mass + (rand.nextDouble() - 0.5) * massVariance) * 1e12;
+            double randomDiameter = diameter + (rand.nextDouble() - 0.5) * diameterVariance;
+
+            systemManager.addObject(x, y, (float) randomDiameter / 2, (float) randomMass);
+        }
+    }
+
+
+    // Keeps bodies inside the spawn area, true if any had to be moved
+    private boolean clamp(ParticleStore store) {
+        boolean clamped = false;
+        for (int i = 0; i < store.size(); i++) {
+            float radius = store.getRadius(i);
+            double x = Math.max(radius, Math.min(width - radius, store.getX(i)));
+            double y = Math.max(radius, Math.min(height - radius, store.getY(i)));
+            if (x != store.getX(i) || y != store.getY(i)) {
+                store.setPosition(i, x, y);
+                clamped = true;
+            }
+        }
+        return clamped;
+    }
+
+
+    // Records hold x, y, vx, vy, fx, fy blocks as TrajectoryWriter.capture() lays them out
+    private static class CsvOutput implements TelemetrySink {
+        private final BufferedWriter writer;
+        private final float[] mass;
+        private final float[] radius;
+        private final StringBuilder line = new StringBuilder(96);
+
+        CsvOutput(Path path, ParticleStore store) throws IOException {
+            int n = store.size();
+            mass = new float[n];
+            radius = new float[n];
+            for (int i = 0; i < n; i++) {
+                mass[i] = store.getMass(i);
+                radius[i] = store.getRadius(i);
+            }
+            writer = Files.newBufferedWriter(path);
+            writer.write("step,time,index,x,y,vx,vy,mass,radius\n");
+        }
+
+        @Override
+        public void write(long step, double time, double[] record) throws IOException {
+            int n = mass.length;
+            for (int i = 0; i < n; i++) {
+                line.setLength(0);
+                line.append(step).append(',').append(time).append(',').append(i).append(',')
+                    .append(record[i]).append(',').append(record[n + i]).append(',')
+                    .append(record[2 * n + i]).append(',').append(record[3 * n + i]).append(',')
+                    .append(mass[i]).append(',').append(radius[i]).append('\n');
+                writer.append(line);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.close();
+        }
+    }
+
+
+    private static class BinaryOutput implements TelemetrySink {
+        private final TrajectoryWriter writer;
+
+        BinaryOutput(Path path, ParticleStore store, float dt) throws IOException {
+            this.writer = new TrajectoryWriter(path, store, dt);
+        }
+
+        @Override
+        public void write(long step, double time, double[] record) throws IOException {
+            writer.writeFrame(step, time, record, 0);
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.close();
+        }
+    }
+
+
+    // Exact name first, then ignoring case, spaces, dashes and brackets,
+    // then a unique prefix of that, so "yoshida" finds "Yoshida 4th Order"
+    static String match(String given, String[] names, String what) {
+        for (String name : names) {
+            if (name.equals(given)) {
+                return name;
+            }
+        }
+        String key = simplify(given);
+        String found = null;
+        for (String name : names) {
+            if (simplify(name).equals(key)) {
+                return name;
+            }
+            if (!key.isEmpty() && simplify(name).startsWith(key)) {
+                if (found != null) {
+                    throw new IllegalArgumentException("Ambiguous " + what + ": " + given);
+                }
+                found = name;
+            }
+        }
+        if (found == null) {
+            throw new IllegalArgumentException("Unknown " + what + ": " + given);
+        }
+        return found;
+    }
+
+    private static String simplify(String name) {
+        return name.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]", "");
+    }
+
+
+    private static String value(String[] args, int i, String option) {
+        if (i >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + option);
+        }
+        return args[i];
+    }
+
+    private static long number(String option, String value) {
+        try {
+            return Long.parseLong(value);
+        }
+        catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a whole number for " + option + ": " + value);
+        }
+    }
+
+    private static long positive(String option, String value) {
+        long n = number(option, value);
+        if (n <= 0) {
+            throw new IllegalArgumentException(option + " must be > 0");
+        }
+        return n;
+    }
+
+    private static double decimal(String option, String value) {
+        try {
+            return Double.parseDouble(value);
+        }
+        catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a number for " + option + ": " + value);
+        }
+    }
+
+    private static double positiveDouble(String option, String value) {
+        double d = decimal(option, value);
+        if (!(d > 0)) {
+            throw new IllegalArgumentException(option + " must be > 0");
+        }
+        return d;
+    }
+
+    private static double nonNegativeDouble(String option, String value) {
+        double d = decimal(option, value);
+        if (!(d >= 0)) {
+            throw new IllegalArgumentException(option + " must be >= 0");
+        }
+        return d;
+    }
+}
@@ -0,0 +1,40 @@
+package nbody.telemetry;
+
+// What a TelemetryPipeline does with a new record when its ring is full,
+// i.e. when the writer thread cannot keep up with the simulation
+public enum BackPressure {
+    // Wait for the writer, nothing is lost but the simulation slows down to disk speed
+    BLOCK("Block"),
+    // Throw the record away and carry on
+    DROP("Drop"),
+    // Keep recording, but only every 2nd, 4th, ... step until the writer has caught up
+    SAMPLE("Sample");
+
+    private final String name;
+
+    BackPressure(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+
+    public static BackPressure byName(String name) {
+        for (BackPressure policy : values()) {
+            if (policy.name.equalsIgnoreCase(name)) {
+                return policy;
+            }
+        }
+        throw new IllegalArgumentException("Unknown back-pressure policy: " + name);
+    }
+
+    public static String[] names() {
+        String[] names = new String[values().length];
+        for (BackPressure policy : values()) {
+            names[policy.ordinal()] = policy.name;
+        }
+        return names;
+    }
+}
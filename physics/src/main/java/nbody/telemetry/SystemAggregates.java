@@ -0,0 +1,56 @@
+package nbody.telemetry;
+
+import nbody.PhysicsEngine.ParticleStore;
+
+// Whole-system quantities for monitoring a run, one O(n) pass over the store.
+// Velocities come from x - oldX like everywhere else. Potential energy is left
+// out, it would cost as much as a gravity evaluation.
+public final class SystemAggregates {
+    public static final int KINETIC_ENERGY = 0;
+    public static final int MOMENTUM_X = 1;
+    public static final int MOMENTUM_Y = 2;
+    public static final int CENTER_OF_MASS_X = 3;
+    public static final int CENTER_OF_MASS_Y = 4;
+    public static final int MAX_SPEED = 5;
+    public static final int CHANNELS = 6;
+
+    public static final String[] NAMES = {
+        "Kinetic energy (J)", "Momentum x (kg m/s)", "Momentum y (kg m/s)",
+        "Center of mass x (m)", "Center of mass y (m)", "Max speed (m/s)"
+    };
+
+
+    private SystemAggregates() {
+    }
+
+
+    // Writes CHANNELS values starting at offset
+    public static void compute(ParticleStore store, float dt, double[] out, int offset) {
+        double kinetic = 0;
+        double px = 0;
+        double py = 0;
+        double mx = 0;
+        double my = 0;
+        double totalMass = 0;
+        double maxSpeed2 = 0;
+        for (int i = 0; i < store.size(); i++) {
+            double m = store.getMass(i);
+            double vx = (store.getX(i) - store.getOldX(i)) / dt;
+            double vy = (store.getY(i) - store.getOldY(i)) / dt;
+            double speed2 = vx * vx + vy * vy;
+            kinetic += m * speed2;
+            px += m * vx;
+            py += m * vy;
+            mx += m * store.getX(i);
+            my += m * store.getY(i);
+            totalMass += m;
+            maxSpeed2 = Math.max(maxSpeed2, speed2);
+        }
+        out[offset + KINETIC_ENERGY] = kinetic / 2;
+        out[offset + MOMENTUM_X] = px;
+        out[offset + MOMENTUM_Y] = py;
+        out[offset + CENTER_OF_MASS_X] = totalMass == 0 ? 0 : mx / totalMass;
+        out[offset + CENTER_OF_MASS_Y] = totalMass == 0 ? 0 : my / totalMass;
+        out[offset + MAX_SPEED] = Math.sqrt(maxSpeed2);
+    }
+}
@@ -0,0 +1,268 @@
+package nbody.telemetry;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Moves per-step output off the simulation thread.
+// The simulation copies the values it wants to keep into a slot of a ring of
+// preallocated records with claim() / commit(), which is a few array stores
+// and never allocates, formats or touches the disk. A writer thread drains the
+// ring in batches into a TelemetrySink and flushes it whenever it runs dry.
+// What happens when the ring is full is up to the BackPressure policy.
+//
+// If the sink throws, the pipeline stops taking records: claim() returns null
+// from then on, and those records and the ones still in the ring count as dropped.
+//
+// One producer thread and one writer thread, the two sequence counters are
+// the only thing they share.
+public class TelemetryPipeline implements AutoCloseable {
+    private static final long IDLE_PARK_NANOS = 1_000_000L;
+    private static final long FULL_PARK_NANOS = 100_000L;
+    private static final int MAX_SAMPLE_INTERVAL = 1 << 16;
+
+    private final TelemetrySink sink;
+    private final BackPressure policy;
+    private final int capacity;
+    private final double[][] records;
+    private final long[] steps;
+    private final double[] times;
+
+    private final AtomicLong head = new AtomicLong();   // next record the producer fills
+    private final AtomicLong tail = new AtomicLong();   // next record the writer takes
+    private final Thread writer;
+    private volatile boolean writerIdle;
+    private volatile boolean producerWaiting;
+    private volatile boolean closing;
+    private volatile Throwable failure;
+
+    private volatile Thread producer;
+
+    // Producer side only
+    private boolean claimed;
+    private int sampleInterval = 1;
+    private long dropped;
+    private long sampledOut;
+    private long blockedNanos;
+
+    private volatile long written;
+    private volatile long discarded;    // writer side, committed but thrown away after a failure
+
+
+    public TelemetryPipeline(String name, int recordWidth, int capacity, BackPressure policy, TelemetrySink sink) {
+        if (recordWidth < 0 || capacity < 1) {
+            throw new IllegalArgumentException("Record width must be >= 0 and capacity > 0");
+        }
+        this.sink = sink;
+        this.policy = policy;
+        this.capacity = capacity;
+        this.records = new double[capacity][recordWidth];
+        this.steps = new long[capacity];
+        this.times = new double[capacity];
+        this.writer = new Thread(this::drain, name);
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+
+    // Ring slots that fit in about maxBytes, at least 2 and at most 1024
+    public static int capacityFor(int recordWidth, long maxBytes) {
+        long bytes = 8L * recordWidth + 16;
+        return (int) Math.max(2, Math.min(1024, maxBytes / bytes));
+    }
+
+
+    // A record to fill for this step, or null if the policy dropped it.
+    // The record keeps whatever the slot held before, so every value must be
+    // written. Hand it over with commit()
+    public double[] claim(long step, double time) {
+        if (claimed) {
+            throw new IllegalStateException("Previous record was never committed");
+        }
+        if (closing) {
+            throw new IllegalStateException("Pipeline is closed");
+        }
+        if (failure != null) {
+            dropped++;
+            return null;
+        }
+        long h = head.get();
+        long used = h - tail.get();
+
+        if (policy == BackPressure.SAMPLE) {
+            // Back to full rate once the writer has mostly caught up
+            if (sampleInterval > 1 && used < capacity / 4) {
+                sampleInterval /= 2;
+            }
+            if (step % sampleInterval != 0) {
+                sampledOut++;
+                return null;
+            }
+        }
+
+        if (used >= capacity) {
+            switch (policy) {
+                case BLOCK -> {
+                    waitForSpace(h);
+                    // The writer died while we waited
+                    if (failure != null) {
+                        dropped++;
+                        return null;
+                    }
+                }
+                case DROP -> {
+                    dropped++;
+                    return null;
+                }
+                case SAMPLE -> {
+                    // Thinning out is SAMPLE doing its job, not a loss
+                    sampleInterval = Math.min(sampleInterval * 2, MAX_SAMPLE_INTERVAL);
+                    sampledOut++;
+                    return null;
+                }
+            }
+        }
+
+        int slot = (int) (h % capacity);
+        steps[slot] = step;
+        times[slot] = time;
+        claimed = true;
+        return records[slot];
+    }
+
+
+    private void waitForSpace(long h) {
+        long start = System.nanoTime();
+        producer = Thread.currentThread();
+        while (h - tail.get() >= capacity && failure == null) {
+            producerWaiting = true;
+            if (h - tail.get() >= capacity) {
+                LockSupport.parkNanos(this, FULL_PARK_NANOS);
+            }
+            producerWaiting = false;
+        }
+        blockedNanos += System.nanoTime() - start;
+    }
+
+
+    // Publishes the record from the last claim() to the writer
+    public void commit() {
+        if (!claimed) {
+            throw new IllegalStateException("Nothing claimed");
+        }
+        claimed = false;
+        head.set(head.get() + 1);
+        if (writerIdle) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+
+    private void drain() {
+        boolean dirty = false;
+        try {
+            while (true) {
+                long t = tail.get();
+                long h = head.get();
+                if (t == h) {
+                    if (dirty) {
+                        sink.flush();
+                        dirty = false;
+                    }
+                    if (closing && head.get() == t) {
+                        break;
+                    }
+                    writerIdle = true;
+                    if (head.get() == t && !closing) {
+                        LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                    }
+                    writerIdle = false;
+                    continue;
+                }
+                for (; t < h; t++) {
+                    int slot = (int) (t % capacity);
+                    sink.write(steps[slot], times[slot], records[slot]);
+                    // Free each slot as soon as it is written so a blocked producer can go on
+                    tail.set(t + 1);
+                    written++;
+                    if (producerWaiting) {
+                        LockSupport.unpark(producer);
+                    }
+                }
+                dirty = true;
+            }
+        }
+        catch (Throwable e) {
+            failure = e;
+            e.printStackTrace();
+            // Keep the ring moving so a blocking producer never hangs on a dead writer.
+            // claim() refuses new records now, but one claimed just before the
+            // failure may still be committed, so keep counting until close()
+            while (!closing || tail.get() != head.get()) {
+                long h = head.get();
+                discarded += h - tail.get();
+                tail.set(h);
+                if (producerWaiting) {
+                    LockSupport.unpark(producer);
+                }
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+        }
+        finally {
+            try {
+                sink.close();
+            }
+            catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+                e.printStackTrace();
+            }
+        }
+    }
+
+
+    // Writes out everything committed so far, closes the sink and waits for the writer
+    @Override
+    public void close() {
+        closing = true;
+        LockSupport.unpark(writer);
+        if (writer != Thread.currentThread()) {
+            try {
+                writer.join();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+
+    public long getWrittenCount() {
+        return written;
+    }
+
+    // Records the policy threw away because the ring was full, plus every
+    // record refused or left unwritten once the sink had failed
+    public long getDroppedCount() {
+        return dropped + discarded;
+    }
+
+    // Records SAMPLE skipped on purpose while it was thinning out
+    public long getSampledOutCount() {
+        return sampledOut;
+    }
+
+    // Time the producer spent waiting under BLOCK
+    public long getBlockedNanos() {
+        return blockedNanos;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public Throwable getFailure() {
+        return failure;
+    }
+}
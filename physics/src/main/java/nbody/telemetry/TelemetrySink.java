@@ -0,0 +1,17 @@
+package nbody.telemetry;
+
+import java.io.IOException;
+
+// Where a TelemetryPipeline's records end up. Only ever called from the
+// pipeline's writer thread, so implementations need no locking of their own
+public interface TelemetrySink {
+    // One record, values is only valid until this returns
+    void write(long step, double time, double[] values) throws IOException;
+
+    // Called after each batch, when the ring has been drained
+    default void flush() throws IOException {
+    }
+
+    // Called once, after the last record
+    void close() throws IOException;
+}
@@ -0,0 +1,86 @@
+package nbody.telemetry;
+
+import java.util.Arrays;
+
+// Min, max, mean and last of a fixed set of channels over a window of
+// samples, kept as running values so the raw series is never stored.
+// Feed it every step with add() and read it out with copyTo() at the end of
+// each reporting window, then reset().
+public class WindowReducer {
+    // Values copyTo() writes per channel, in this order
+    public static final int MIN = 0;
+    public static final int MAX = 1;
+    public static final int MEAN = 2;
+    public static final int LAST = 3;
+    public static final int STATS = 4;
+
+    private final int channels;
+    private final double[] min;
+    private final double[] max;
+    private final double[] sum;
+    private final double[] last;
+    private long count;
+
+
+    public WindowReducer(int channels) {
+        this.channels = channels;
+        min = new double[channels];
+        max = new double[channels];
+        sum = new double[channels];
+        last = new double[channels];
+        reset();
+    }
+
+
+    // One sample, channels values starting at offset
+    public void add(double[] values, int offset) {
+        for (int c = 0; c < channels; c++) {
+            double v = values[offset + c];
+            if (v < min[c]) {
+                min[c] = v;
+            }
+            if (v > max[c]) {
+                max[c] = v;
+            }
+            sum[c] += v;
+            last[c] = v;
+        }
+        count++;
+    }
+
+
+    // STATS values per channel, channel by channel, starting at offset
+    public void copyTo(double[] out, int offset) {
+        for (int c = 0; c < channels; c++) {
+            int k = offset + c * STATS;
+            out[k + MIN] = min[c];
+            out[k + MAX] = max[c];
+            out[k + MEAN] = count == 0 ? Double.NaN : sum[c] / count;
+            out[k + LAST] = last[c];
+        }
+    }
+
+
+    public void reset() {
+        Arrays.fill(min, Double.POSITIVE_INFINITY);
+        Arrays.fill(max, Double.NEGATIVE_INFINITY);
+        Arrays.fill(sum, 0);
+        Arrays.fill(last, Double.NaN);
+        count = 0;
+    }
+
+
+    public int getChannelCount() {
+        return channels;
+    }
+
+    // Samples since the last reset
+    public long getCount() {
+        return count;
+    }
+
+    // Values copyTo() fills in
+    public int getWidth() {
+        return channels * STATS;
+    }
+}
@@ -0,0 +1,64 @@
+package nbody.trajectory;
+
+import java.nio.charset.StandardCharsets;
+
+// Layout of a binary trajectory file, all little endian.
+//
+//   0  8 bytes  magic "NBODYTRJ"
+//   8  int      format version
+//  12  int      body count n
+//  16  int      column flags, POSITIONS | VELOCITIES | FORCES
+//  20  int      bytes per value, 4 (float) or 8 (double)
+//  24  double   timestep
+//  32  long     frames written so far, updated after every frame
+//  40  long     bytes per frame
+//  48  16 bytes reserved
+//  64  float[n] mass, then float[n] radius
+//
+// Frames start at the next multiple of 8 and are all the same size:
+// long step, double time, then one block of n values per column in the
+// order x, y, vx, vy, fx, fy, leaving out the columns that are not written.
+// Each frame is padded to a multiple of 8 bytes.
+public final class TrajectoryFormat {
+    public static final int POSITIONS = 1;
+    public static final int VELOCITIES = 2;
+    public static final int FORCES = 4;
+    public static final int ALL = POSITIONS | VELOCITIES | FORCES;
+
+    static final byte[] MAGIC = "NBODYTRJ".getBytes(StandardCharsets.US_ASCII);
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 64;
+    static final int FRAME_HEADER_BYTES = 16;
+
+    static final int BODY_COUNT_OFFSET = 12;
+    static final int COLUMNS_OFFSET = 16;
+    static final int VALUE_BYTES_OFFSET = 20;
+    static final int DT_OFFSET = 24;
+    static final int FRAME_COUNT_OFFSET = 32;
+    static final int FRAME_BYTES_OFFSET = 40;
+
+    // Column names in file order, two per flag
+    static final String[] COLUMN_NAMES = { "x", "y", "vx", "vy", "fx", "fy" };
+
+
+    private TrajectoryFormat() {
+    }
+
+
+    // Number of value blocks a frame holds for these column flags
+    public static int valueBlocks(int columns) {
+        return 2 * Integer.bitCount(columns & ALL);
+    }
+
+    static long dataStart(int bodyCount) {
+        return align(HEADER_BYTES + 8L * bodyCount);
+    }
+
+    static long frameBytes(int bodyCount, int columns, int valueBytes) {
+        return align(FRAME_HEADER_BYTES + (long) valueBlocks(columns) * bodyCount * valueBytes);
+    }
+
+    static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+}
@@ -0,0 +1,173 @@
+package nbody.trajectory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Reads a binary trajectory file written by TrajectoryWriter.
+// Frames are mapped read only a chunk at a time as they are asked for, so
+// reading front to back touches each page of the file once.
+public class TrajectoryReader implements AutoCloseable {
+    private static final long CHUNK_BYTES = 64L << 20;
+
+    private final FileChannel channel;
+    private final int bodyCount;
+    private final int columns;
+    private final int valueBytes;
+    private final double dt;
+    private final long frameCount;
+    private final int frameBytes;
+    private final long dataStart;
+    private final int framesPerChunk;
+    private final float[] mass;
+    private final float[] radius;
+
+    private MappedByteBuffer chunk;
+    private long chunkIndex = -1;
+
+
+    public TrajectoryReader(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            ByteBuffer head = ByteBuffer.allocate(TrajectoryFormat.HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(head, 0);
+            byte[] magic = new byte[TrajectoryFormat.MAGIC.length];
+            head.get(0, magic);
+            if (!Arrays.equals(magic, TrajectoryFormat.MAGIC)) {
+                throw new IOException(path + " is not a trajectory file");
+            }
+            int version = head.getInt(8);
+            if (version != TrajectoryFormat.VERSION) {
+                throw new IOException("Unsupported trajectory version " + version);
+            }
+            bodyCount = head.getInt(TrajectoryFormat.BODY_COUNT_OFFSET);
+            columns = head.getInt(TrajectoryFormat.COLUMNS_OFFSET);
+            valueBytes = head.getInt(TrajectoryFormat.VALUE_BYTES_OFFSET);
+            dt = head.getDouble(TrajectoryFormat.DT_OFFSET);
+            long frameBytesLong = head.getLong(TrajectoryFormat.FRAME_BYTES_OFFSET);
+            if (bodyCount < 0 || (valueBytes != 4 && valueBytes != 8)
+                    || frameBytesLong != TrajectoryFormat.frameBytes(bodyCount, columns, valueBytes)) {
+                throw new IOException("Corrupt trajectory header in " + path);
+            }
+            frameBytes = (int) frameBytesLong;
+            dataStart = TrajectoryFormat.dataStart(bodyCount);
+            framesPerChunk = (int) Math.max(1, CHUNK_BYTES / frameBytes);
+
+            // A run that was killed can leave fewer whole frames than the header claims
+            long written = head.getLong(TrajectoryFormat.FRAME_COUNT_OFFSET);
+            long present = Math.max(0, (channel.size() - dataStart) / frameBytes);
+            frameCount = Math.min(written, present);
+
+            ByteBuffer bodies = ByteBuffer.allocate(8 * bodyCount).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(bodies, TrajectoryFormat.HEADER_BYTES);
+            mass = new float[bodyCount];
+            radius = new float[bodyCount];
+            bodies.asFloatBuffer().get(mass).get(radius);
+        }
+        catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Trajectory file is truncated");
+            }
+        }
+        buffer.flip();
+    }
+
+
+    private ByteBuffer frame(long f) throws IOException {
+        if (f < 0 || f >= frameCount) {
+            throw new IndexOutOfBoundsException("Frame " + f + " of " + frameCount);
+        }
+        long index = f / framesPerChunk;
+        if (index != chunkIndex) {
+            long first = index * framesPerChunk;
+            long frames = Math.min(framesPerChunk, frameCount - first);
+            chunk = channel.map(FileChannel.MapMode.READ_ONLY, dataStart + first * frameBytes, frames * frameBytes);
+            chunkIndex = index;
+        }
+        return chunk.slice((int) (f % framesPerChunk) * frameBytes, frameBytes).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+
+    public long getStep(long f) throws IOException {
+        return frame(f).getLong(0);
+    }
+
+    public double getTime(long f) throws IOException {
+        return frame(f).getDouble(8);
+    }
+
+
+    // Reads one column of frame f, column being an index into getColumnNames()
+    public void readColumn(long f, int column, double[] out) throws IOException {
+        ByteBuffer frame = frame(f);
+        frame.position(TrajectoryFormat.FRAME_HEADER_BYTES + column * bodyCount * valueBytes);
+        if (valueBytes == 8) {
+            frame.asDoubleBuffer().get(out, 0, bodyCount);
+        }
+        else {
+            FloatBuffer floats = frame.asFloatBuffer();
+            for (int i = 0; i < bodyCount; i++) {
+                out[i] = floats.get(i);
+            }
+        }
+    }
+
+
+    // The columns present, in file order, e.g. x, y, fx, fy
+    public String[] getColumnNames() {
+        String[] names = new String[TrajectoryFormat.valueBlocks(columns)];
+        int k = 0;
+        for (int flag = 0; flag < 3; flag++) {
+            if ((columns & (1 << flag)) != 0) {
+                names[k++] = TrajectoryFormat.COLUMN_NAMES[2 * flag];
+                names[k++] = TrajectoryFormat.COLUMN_NAMES[2 * flag + 1];
+            }
+        }
+        return names;
+    }
+
+    public int getBodyCount() {
+        return bodyCount;
+    }
+
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public double getTimestep() {
+        return dt;
+    }
+
+    public float getMass(int i) {
+        return mass[i];
+    }
+
+    public float getRadius(int i) {
+        return radius[i];
+    }
+
+
+    @Override
+    public void close() throws IOException {
+        chunk = null;
+        channel.close();
+    }
+}
@@ -0,0 +1,100 @@
+package nbody.trajectory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Turns a binary trajectory into CSV for reading or plotting, one row per
+// body per frame: step,time,index,<columns>,mass,radius.
+//
+//   TrajectoryToCsv <trajectory> [output.csv] [--every K] [--body I]
+//
+// Without an output path the CSV goes to stdout. --every keeps every Kth
+// frame, --body only the rows of one body.
+public class TrajectoryToCsv {
+
+    public static void main(String[] args) {
+        Path input = null;
+        Path output = null;
+        long every = 1;
+        int body = -1;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--every" -> every = Long.parseLong(args[++i]);
+                    case "--body" -> body = Integer.parseInt(args[++i]);
+                    default -> {
+                        if (input == null) {
+                            input = Path.of(args[i]);
+                        }
+                        else if (output == null) {
+                            output = Path.of(args[i]);
+                        }
+                        else {
+                            throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+                        }
+                    }
+                }
+            }
+            if (input == null || every <= 0) {
+                throw new IllegalArgumentException("Usage: TrajectoryToCsv <trajectory> [output.csv] [--every K] [--body I]");
+            }
+        }
+        catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            System.err.println(e instanceof ArrayIndexOutOfBoundsException ? "Missing option value" : e.getMessage());
+            System.exit(2);
+        }
+
+        try (TrajectoryReader reader = new TrajectoryReader(input);
+             Writer writer = output == null
+                     ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16)
+                     : Files.newBufferedWriter(output)) {
+            convert(reader, writer, every, body);
+        }
+        catch (IOException | IndexOutOfBoundsException e) {
+            System.err.println("Could not convert " + input + ": " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+
+    public static void convert(TrajectoryReader reader, Writer writer, long every, int body) throws IOException {
+        int n = reader.getBodyCount();
+        if (body >= n) {
+            throw new IndexOutOfBoundsException("Body " + body + " of " + n);
+        }
+        String[] names = reader.getColumnNames();
+        double[][] values = new double[names.length][n];
+
+        StringBuilder line = new StringBuilder(128);
+        line.append("step,time,index");
+        for (String name : names) {
+            line.append(',').append(name);
+        }
+        line.append(",mass,radius\n");
+        writer.append(line);
+
+        int from = body < 0 ? 0 : body;
+        int to = body < 0 ? n : body + 1;
+        for (long f = 0; f < reader.getFrameCount(); f += every) {
+            long step = reader.getStep(f);
+            double time = reader.getTime(f);
+            for (int c = 0; c < names.length; c++) {
+                reader.readColumn(f, c, values[c]);
+            }
+            for (int i = from; i < to; i++) {
+                line.setLength(0);
+                line.append(step).append(',').append(time).append(',').append(i);
+                for (int c = 0; c < names.length; c++) {
+                    line.append(',').append(values[c][i]);
+                }
+                line.append(',').append(reader.getMass(i)).append(',').append(reader.getRadius(i)).append('\n');
+                writer.append(line);
+            }
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package nbody.trajectory;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import nbody.PhysicsEngine.ParticleStore;
+
+// Writes the full state of a ParticleStore every frame into a binary
+// trajectory file (see TrajectoryFormat) through a memory mapped FileChannel.
+// A frame is a few bulk copies of the store's arrays into the mapping, the OS
+// writes the pages out in the background, so there is no formatting and no
+// write() call per frame.
+//
+// Every frame is written in full before the header's frame count is raised,
+// and the count is stored with release semantics, so neither the JIT nor the
+// CPU can make the new count visible ahead of the frame data. A reader that
+// maps the file (or a run that is killed) therefore never sees a counted frame
+// that is not all there. That covers other processes going through the page
+// cache. Surviving an OS crash or power loss needs the pages on disk: every
+// chunk is forced when the writer moves on to the next one, and close() forces
+// the last chunk before the header. A closed file is therefore on disk with its
+// count, but a crash during the run can still leave the header counting frames
+// of the current chunk that never got there.
+//
+// The file is mapped a chunk of whole frames at a time, about CHUNK_BYTES each.
+// Mass and radius go into the header once, the body count is fixed per file.
+public class TrajectoryWriter implements AutoCloseable {
+    private static final long CHUNK_BYTES = 64L << 20;
+
+    // Aligned 8 byte access to the header, for the release store of the frame count
+    private static final VarHandle HEADER_LONG =
+            MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private final ParticleStore store;
+    private final int bodyCount;
+    private final int columns;
+    private final boolean doubles;
+    private final float dt;
+    private final long dataStart;
+    private final int frameBytes;
+    private final int framesPerChunk;
+
+    private MappedByteBuffer chunk;
+    private long chunkIndex = -1;
+    private long frames;
+
+    // Typed view over the whole chunk, made once per chunk, frames are put at absolute indices
+    private DoubleBuffer doubleView;
+    private FloatBuffer floatView;
+
+    // writeFrame(step, time) captures the store into here first
+    private double[] scratch = new double[0];
+    private float[] floats = new float[0];
+
+
+    // All columns as doubles
+    public TrajectoryWriter(Path path, ParticleStore store, float dt) throws IOException {
+        this(path, store, dt, TrajectoryFormat.ALL, true);
+    }
+
+    public TrajectoryWriter(Path path, ParticleStore store, float dt, int columns, boolean doublePrecision) throws IOException {
+        if ((columns & TrajectoryFormat.ALL) == 0 || (columns & ~TrajectoryFormat.ALL) != 0) {
+            throw new IllegalArgumentException("Columns must be a combination of POSITIONS, VELOCITIES and FORCES");
+        }
+        if (dt <= 0) {
+            throw new IllegalArgumentException("Timestep must be > 0");
+        }
+        this.store = store;
+        this.bodyCount = store.size();
+        this.columns = columns;
+        this.doubles = doublePrecision;
+        this.dt = dt;
+        int valueBytes = doublePrecision ? 8 : 4;
+        this.dataStart = TrajectoryFormat.dataStart(bodyCount);
+        long bytes = TrajectoryFormat.frameBytes(bodyCount, columns, valueBytes);
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("A frame of " + bodyCount + " bodies does not fit one mapping");
+        }
+        this.frameBytes = (int) bytes;
+        this.framesPerChunk = (int) Math.max(1, Math.min(CHUNK_BYTES, Integer.MAX_VALUE) / frameBytes);
+
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            header = channel.map(FileChannel.MapMode.READ_WRITE, 0, dataStart);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            header.put(0, TrajectoryFormat.MAGIC);
+            header.putInt(8, TrajectoryFormat.VERSION);
+            header.putInt(TrajectoryFormat.BODY_COUNT_OFFSET, bodyCount);
+            header.putInt(TrajectoryFormat.COLUMNS_OFFSET, columns);
+            header.putInt(TrajectoryFormat.VALUE_BYTES_OFFSET, valueBytes);
+            header.putDouble(TrajectoryFormat.DT_OFFSET, dt);
+            header.putLong(TrajectoryFormat.FRAME_COUNT_OFFSET, 0);
+            header.putLong(TrajectoryFormat.FRAME_BYTES_OFFSET, frameBytes);
+            for (int i = 0; i < bodyCount; i++) {
+                header.putFloat(TrajectoryFormat.HEADER_BYTES + 4 * i, store.getMass(i));
+                header.putFloat(TrajectoryFormat.HEADER_BYTES + 4 * (bodyCount + i), store.getRadius(i));
+            }
+        }
+        catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+
+    // Appends the store's current state as one frame
+    public void writeFrame(long step, double time) throws IOException {
+        if (store.size() != bodyCount) {
+            throw new IllegalStateException("Body count changed from " + bodyCount + " to " + store.size());
+        }
+        int width = getFrameWidth();
+        if (scratch.length < width) {
+            scratch = new double[width];
+        }
+        capture(store, dt, columns, scratch, 0);
+        writeFrame(step, time, scratch, 0);
+    }
+
+
+    // Appends a frame from values captured earlier with capture(), e.g. on
+    // another thread, getFrameWidth() values starting at offset
+    public void writeFrame(long step, double time, double[] values, int offset) throws IOException {
+        long index = frames / framesPerChunk;
+        if (index != chunkIndex) {
+            // The finished chunk has to be on disk before its mapping is let go
+            if (chunk != null) {
+                chunk.force();
+            }
+            long position = dataStart + index * framesPerChunk * (long) frameBytes;
+            chunk = channel.map(FileChannel.MapMode.READ_WRITE, position, (long) framesPerChunk * frameBytes);
+            chunk.order(ByteOrder.LITTLE_ENDIAN);
+            if (doubles) {
+                doubleView = chunk.asDoubleBuffer();
+            }
+            else {
+                floatView = chunk.asFloatBuffer();
+            }
+            chunkIndex = index;
+        }
+        int frameStart = (int) (frames % framesPerChunk) * frameBytes;
+        chunk.putLong(frameStart, step);
+        chunk.putDouble(frameStart + 8, time);
+        put(frameStart + TrajectoryFormat.FRAME_HEADER_BYTES, values, offset, getFrameWidth());
+
+        // Data first, then publish the count, see the class comment
+        frames++;
+        HEADER_LONG.setRelease(header, TrajectoryFormat.FRAME_COUNT_OFFSET, frames);
+    }
+
+
+    // Copies the columns of a frame out of the store into out, in file order,
+    // valueBlocks(columns) * store.size() values starting at offset
+    public static void capture(ParticleStore store, float dt, int columns, double[] out, int offset) {
+        int n = store.size();
+        int k = offset;
+        if ((columns & TrajectoryFormat.POSITIONS) != 0) {
+            for (int i = 0; i < n; i++) {
+                out[k++] = store.getX(i);
+            }
+            for (int i = 0; i < n; i++) {
+                out[k++] = store.getY(i);
+            }
+        }
+        if ((columns & TrajectoryFormat.VELOCITIES) != 0) {
+            for (int i = 0; i < n; i++) {
+                out[k++] = (store.getX(i) - store.getOldX(i)) / dt;
+            }
+            for (int i = 0; i < n; i++) {
+                out[k++] = (store.getY(i) - store.getOldY(i)) / dt;
+            }
+        }
+        if ((columns & TrajectoryFormat.FORCES) != 0) {
+            for (int i = 0; i < n; i++) {
+                out[k++] = store.getLastAccelX(i) * store.getMass(i);
+            }
+            for (int i = 0; i < n; i++) {
+                out[k++] = store.getLastAccelY(i) * store.getMass(i);
+            }
+        }
+    }
+
+
+    // Values in one frame, what capture() fills in
+    public int getFrameWidth() {
+        return TrajectoryFormat.valueBlocks(columns) * bodyCount;
+    }
+
+
+    // All column blocks at once, bulk copied through the chunk's typed view.
+    // Frames and the frame header are 8 byte aligned, so byteOffset divides evenly
+    private void put(int byteOffset, double[] values, int offset, int n) {
+        if (doubles) {
+            doubleView.put(byteOffset / 8, values, offset, n);
+        }
+        else {
+            if (floats.length < n) {
+                floats = new float[n];
+            }
+            for (int i = 0; i < n; i++) {
+                floats[i] = (float) values[offset + i];
+            }
+            floatView.put(byteOffset / 4, floats, 0, n);
+        }
+    }
+
+
+    public long getFrameCount() {
+        return frames;
+    }
+
+    public int getBodyCount() {
+        return bodyCount;
+    }
+
+
+    // Flushes the mapped pages and cuts off the unused rest of the last chunk
+    @Override
+    public void close() throws IOException {
+        if (!channel.isOpen()) {
+            return;
+        }
+        try {
+            if (chunk != null) {
+                chunk.force();
+            }
+            header.force();
+            try {
+                channel.truncate(dataStart + frames * frameBytes);
+            }
+            catch (IOException e) {
+                // Some platforms refuse to shrink a mapped file, readers go by the frame count anyway
+            }
+        }
+        finally {
+            chunk = null;
+            doubleView = null;
+            floatView = null;
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package nbody.PhysicsEngine;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class CollisionManagerTest {
+
+    // The parallel grid resolves pairs in a fixed order, so the same seed has to give
+    // the same positions to the last bit, whether the rows ran on one thread or several
+    @Test
+    void parallelGridIsDeterministic() {
+        int previous = GravityManager.getThreadCount();
+        try {
+            double[] first = resolve(1);
+            double[] second = resolve(1);
+            double[] threaded = resolve(4);
+            double[] threadedAgain = resolve(4);
+
+            assertArrayEquals(first, second);
+            assertArrayEquals(first, threaded);
+            assertArrayEquals(first, threadedAgain);
+        }
+        finally {
+            GravityManager.setThreadCount(previous);
+        }
+    }
+
+
+    // Heavily overlapping seeded bodies after a few collision passes, as x0, y0, x1, y1, ...
+    private static double[] resolve(int threads) {
+        GravityManager.setThreadCount(threads);
+        VerletSystemManger system = new VerletSystemManger();
+        Random random = new Random(9);
+        for (int i = 0; i < 5000; i++) {
+            system.addObject(random.nextDouble() * 300, random.nextDouble() * 300, 1f + random.nextFloat() * 2f, 1f);
+        }
+
+        CollisionManager collisions = new CollisionManager(system);
+        collisions.setSolver(CollisionEngine.PARALLEL_GRID);
+        for (int pass = 0; pass < 8; pass++) {
+            collisions.solve();
+        }
+
+        ParticleStore store = system.getStore();
+        double[] positions = new double[2 * store.size()];
+        for (int i = 0; i < store.size(); i++) {
+            positions[2 * i] = store.getX(i);
+            positions[2 * i + 1] = store.getY(i);
+        }
+        return positions;
+    }
+}
@@ -0,0 +1,104 @@
+package nbody.PhysicsEngine;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class FastMultipoleTest {
+
+    // Order 6 lands around 3e-6 RMS and 5e-3 for the worst body on these scenes,
+    // the bounds leave room for round off without hiding a broken translation
+    private static final double MAX_RMS_ERROR = 1e-4;
+    private static final double MAX_BODY_ERROR = 5e-2;
+
+
+    @Test
+    void uniformSceneMatchesBruteForce() {
+        ParticleStore store = scene(false);
+        double[] error = relativeError(store, FastMultipole.DEFAULT_ORDER);
+
+        assertTrue(error[0] < MAX_RMS_ERROR, "RMS force error " + error[0]);
+        assertTrue(error[1] < MAX_BODY_ERROR, "worst body force error " + error[1]);
+    }
+
+
+    // Dense core and thin halo, so leaves at very different fill levels sit next to each other
+    @Test
+    void clusteredSceneMatchesBruteForce() {
+        ParticleStore store = scene(true);
+        double[] error = relativeError(store, FastMultipole.DEFAULT_ORDER);
+
+        assertTrue(error[0] < MAX_RMS_ERROR, "RMS force error " + error[0]);
+        assertTrue(error[1] < MAX_BODY_ERROR, "worst body force error " + error[1]);
+    }
+
+
+    @Test
+    void higherOrderIsMoreAccurate() {
+        ParticleStore store = scene(false);
+        double low = relativeError(store, 4)[0];
+        double high = relativeError(store, 8)[0];
+
+        assertTrue(high < low / 10, "order 8 error " + high + " vs order 4 error " + low);
+    }
+
+
+    private static ParticleStore scene(boolean clustered) {
+        ParticleStore store = new ParticleStore();
+        Random random = new Random(3);
+        for (int i = 0; i < 4000; i++) {
+            double x;
+            double y;
+            if (clustered) {
+                double r = 2000 * Math.sqrt(-Math.log(1 - random.nextDouble() * 0.99));
+                double angle = random.nextDouble() * 2 * Math.PI;
+                x = 5000 + r * Math.cos(angle);
+                y = 5000 + r * Math.sin(angle);
+            }
+            else {
+                x = random.nextDouble() * 10000;
+                y = random.nextDouble() * 10000;
+            }
+            store.add(x, y, 1f, 1e10f + random.nextFloat() * 1e12f);
+        }
+        return store;
+    }
+
+
+    // {RMS relative error over all bodies, worst single body relative error}
+    private static double[] relativeError(ParticleStore store, int order) {
+        int n = store.size();
+        clearAccelerations(store);
+        GravityManager.computeForcesBruteForce(store);
+        double[] exactX = new double[n];
+        double[] exactY = new double[n];
+        for (int i = 0; i < n; i++) {
+            exactX[i] = store.getAccelX(i);
+            exactY[i] = store.getAccelY(i);
+        }
+
+        clearAccelerations(store);
+        new FastMultipole(order, FastMultipole.DEFAULT_LEAF_SIZE).computeForces(store);
+
+        double errorSum = 0;
+        double exactSum = 0;
+        double worst = 0;
+        for (int i = 0; i < n; i++) {
+            double ex = store.getAccelX(i) - exactX[i];
+            double ey = store.getAccelY(i) - exactY[i];
+            errorSum += ex * ex + ey * ey;
+            exactSum += exactX[i] * exactX[i] + exactY[i] * exactY[i];
+            worst = Math.max(worst, Math.hypot(ex, ey) / Math.hypot(exactX[i], exactY[i]));
+        }
+        return new double[] {Math.sqrt(errorSum / exactSum), worst};
+    }
+
+
+    private static void clearAccelerations(ParticleStore store) {
+        for (int i = 0; i < store.size(); i++) {
+            store.setAcceleration(i, 0, 0);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package nbody.PhysicsEngine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class GravityManagerTest {
+
+    // Two bodies on the same spot must not turn the whole store into NaN
+    @Test
+    void coincidentBodiesGiveFiniteForces() {
+        ParticleStore store = new ParticleStore();
+        store.add(100, 100, 1f, 1e12f);
+        store.add(100, 100, 1f, 1e12f);
+        store.add(150, 120, 1f, 1e12f);
+
+        GravityManager.computeForcesBruteForce(store);
+
+        for (int i = 0; i < store.size(); i++) {
+            assertTrue(Double.isFinite(store.getAccelX(i)) && Double.isFinite(store.getAccelY(i)),
+                    "body " + i + " got a non-finite acceleration");
+        }
+        assertTrue(store.getAccelX(2) < 0, "third body should be pulled towards the pair");
+    }
+
+
+    // The tiled, vectorised direct sum has to agree with the textbook double loop,
+    // on one thread and split over several. 1000 bodies covers partial tiles and vector tails
+    @Test
+    void bruteForceMatchesPairwiseReference() {
+        ParticleStore store = new ParticleStore();
+        Random random = new Random(7);
+        for (int i = 0; i < 1000; i++) {
+            store.add(random.nextDouble() * 5000, random.nextDouble() * 5000, 1f, 1e10f + random.nextFloat() * 1e12f);
+        }
+
+        int n = store.size();
+        double[] refX = new double[n];
+        double[] refY = new double[n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                if (i == j) continue;
+                double dx = store.getX(j) - store.getX(i);
+                double dy = store.getY(j) - store.getY(i);
+                double r = Math.sqrt(dx * dx + dy * dy);
+                double a = GravityManager.G * store.getMass(j) / (r * r * r);
+                refX[i] += dx * a;
+                refY[i] += dy * a;
+            }
+        }
+
+        int previous = GravityManager.getThreadCount();
+        try {
+            for (int threads : new int[] {1, 4}) {
+                GravityManager.setThreadCount(threads);
+                for (int i = 0; i < n; i++) {
+                    store.setAcceleration(i, 0, 0);
+                }
+                GravityManager.computeForcesBruteForce(store);
+
+                for (int i = 0; i < n; i++) {
+                    double scale = Math.hypot(refX[i], refY[i]);
+                    assertEquals(refX[i], store.getAccelX(i), scale * 1e-9, threads + " threads, body " + i);
+                    assertEquals(refY[i], store.getAccelY(i), scale * 1e-9, threads + " threads, body " + i);
+                }
+            }
+        }
+        finally {
+            GravityManager.setThreadCount(previous);
+        }
+    }
+}
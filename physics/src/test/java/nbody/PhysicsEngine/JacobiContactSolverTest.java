@@ -0,0 +1,23 @@
+package nbody.PhysicsEngine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class JacobiContactSolverTest {
+
+    // Radius 1 bodies 2.15 apart are inside the 1.1x contact margin. With plain
+    // 2 wide cells from x = 0 they land two cells apart and the grid never offers them
+    @Test
+    void pairsInsideTheMarginAreCollected() {
+        ParticleStore store = new ParticleStore();
+        store.add(0, 10, 1f, 1f);
+        store.add(1.9, 0, 1f, 1f);
+        store.add(4.05, 0, 1f, 1f);
+
+        JacobiContactSolver solver = new JacobiContactSolver();
+        solver.solve(store, new SpatialHashing(), 1);
+
+        assertEquals(1, solver.getPairCount());
+    }
+}
@@ -0,0 +1,61 @@
+package nbody.PhysicsEngine;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class MortonQuadTreeTest {
+
+    // The corners pin the bounding square to 65536 units, so one unit is exactly
+    // one cell at the deepest level and integer coordinates sit on cell edges
+    private static final double SIDE = 1 << 16;
+
+
+    // Every body that really touches body i has to come out of the query for i,
+    // including bodies sitting on or just past the cell edges the tree splits on
+    @Test
+    void collisionCandidatesCoverBruteForceOverlaps() {
+        ParticleStore store = new ParticleStore();
+        store.add(0, 0, 0.3f, 1f);
+        store.add(SIDE, SIDE, 0.3f, 1f);
+
+        // Half unit lattices at the middle, where the first split happens,
+        // and at the far corner, where key and node geometry drift apart most
+        for (double base : new double[] {SIDE / 2 - 12, SIDE - 24}) {
+            for (double x = base; x <= Math.min(SIDE, base + 24); x += 0.5) {
+                for (double y = base; y <= Math.min(SIDE, base + 24); y += 0.5) {
+                    store.add(x, y, 0.3f, 1f);
+                }
+            }
+        }
+
+        Random random = new Random(11);
+        for (int i = 0; i < 2000; i++) {
+            store.add(random.nextDouble() * SIDE, random.nextDouble() * SIDE, 0.3f, 1f);
+        }
+
+        MortonQuadTree tree = new MortonQuadTree(1, 16);
+        tree.build(store);
+
+        int n = store.size();
+        Set<Integer> candidates = new HashSet<>();
+        for (int i = 0; i < n; i++) {
+            candidates.clear();
+            tree.findPotentialCollisions(i, (a, b) -> candidates.add(b));
+
+            for (int j = 0; j < n; j++) {
+                double dx = store.getX(j) - store.getX(i);
+                double dy = store.getY(j) - store.getY(i);
+                double reach = store.getRadius(i) + store.getRadius(j);
+                if (j != i && dx * dx + dy * dy <= reach * reach) {
+                    assertTrue(candidates.contains(j), "query for body at (" + store.getX(i) + ", " + store.getY(i)
+                            + ") missed the one at (" + store.getX(j) + ", " + store.getY(j) + ")");
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package nbody.PhysicsEngine;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class ParticleMeshTest {
+
+    // The default 256 grid lands around 1e-4 RMS and 2e-4 for the worst probe, error
+    // shrinks 4x per doubling of the grid. A kernel with the wrong wrap around offsets
+    // is off by about 1e-2
+    private static final double MAX_RMS_ERROR = 5e-4;
+    private static final double MAX_BODY_ERROR = 2e-3;
+
+
+    // Covers the cloud-in-cell deposit, the zero padded convolution in every
+    // direction and the interpolation back to the bodies
+    @Test
+    void farFieldMatchesBruteForce() {
+        ParticleStore store = new ParticleStore();
+        int probes = scene(store);
+        double[] error = relativeError(store, probes, ParticleMesh.DEFAULT_GRID_SIZE);
+
+        assertTrue(error[0] < MAX_RMS_ERROR, "RMS force error " + error[0]);
+        assertTrue(error[1] < MAX_BODY_ERROR, "worst probe force error " + error[1]);
+    }
+
+
+    @Test
+    void finerMeshIsMoreAccurate() {
+        ParticleStore store = new ParticleStore();
+        int probes = scene(store);
+        double coarse = relativeError(store, probes, 64)[0];
+        double fine = relativeError(store, probes, 256)[0];
+
+        assertTrue(fine < coarse / 10, "256 grid error " + fine + " vs 64 grid error " + coarse);
+    }
+
+
+    // Heavy clump in the middle, light probes in a ring well clear of it, so the
+    // probes' forces come almost entirely from many cells away.
+    // Returns the index of the first probe
+    private static int scene(ParticleStore store) {
+        Random random = new Random(3);
+        for (int i = 0; i < 200; i++) {
+            double r = 500 * Math.sqrt(random.nextDouble());
+            double angle = random.nextDouble() * 2 * Math.PI;
+            store.add(5000 + r * Math.cos(angle), 5000 + r * Math.sin(angle), 1f, 1e10f + random.nextFloat() * 1e12f);
+        }
+        int probes = store.size();
+        for (int i = 0; i < 300; i++) {
+            double r = 3000 + 1500 * random.nextDouble();
+            double angle = random.nextDouble() * 2 * Math.PI;
+            store.add(5000 + r * Math.cos(angle), 5000 + r * Math.sin(angle), 1f, 1f);
+        }
+        return probes;
+    }
+
+
+    // {RMS relative error over the probes, worst single probe relative error}
+    private static double[] relativeError(ParticleStore store, int probes, int gridSize) {
+        int n = store.size();
+        clearAccelerations(store);
+        GravityManager.computeForcesBruteForce(store);
+        double[] exactX = new double[n];
+        double[] exactY = new double[n];
+        for (int i = 0; i < n; i++) {
+            exactX[i] = store.getAccelX(i);
+            exactY[i] = store.getAccelY(i);
+        }
+
+        clearAccelerations(store);
+        new ParticleMesh(gridSize).computeForces(store);
+
+        double errorSum = 0;
+        double exactSum = 0;
+        double worst = 0;
+        for (int i = probes; i < n; i++) {
+            double ex = store.getAccelX(i) - exactX[i];
+            double ey = store.getAccelY(i) - exactY[i];
+            errorSum += ex * ex + ey * ey;
+            exactSum += exactX[i] * exactX[i] + exactY[i] * exactY[i];
+            worst = Math.max(worst, Math.hypot(ex, ey) / Math.hypot(exactX[i], exactY[i]));
+        }
+        return new double[] {Math.sqrt(errorSum / exactSum), worst};
+    }
+
+
+    private static void clearAccelerations(ParticleStore store) {
+        for (int i = 0; i < store.size(); i++) {
+            store.setAcceleration(i, 0, 0);
+        }
+    }
+}
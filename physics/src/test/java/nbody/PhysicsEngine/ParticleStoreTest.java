@@ -0,0 +1,53 @@
+package nbody.PhysicsEngine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class ParticleStoreTest {
+    private static final int BODIES = 1000;
+    private static final float DT = 0.016f;
+
+
+    // The per-step work on the arrays must not create garbage
+    @Test
+    void stepLoopAllocatesNothing() {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        ParticleStore store = new ParticleStore(BODIES);
+        Random rand = new Random(42);
+        for (int i = 0; i < BODIES; i++) {
+            store.add(rand.nextDouble() * 800, rand.nextDouble() * 600, 1f, 1e12f);
+        }
+
+        // Warm up so the loop is compiled before it is measured
+        for (int s = 0; s < 20_000; s++) {
+            step(store);
+        }
+
+        long thread = Thread.currentThread().threadId();
+        int steps = 1000;
+        long before = threads.getThreadAllocatedBytes(thread);
+        for (int s = 0; s < steps; s++) {
+            step(store);
+        }
+        long after = threads.getThreadAllocatedBytes(thread);
+
+        assertEquals(0, (after - before) / steps, "bytes allocated per step");
+    }
+
+
+    private static void step(ParticleStore store) {
+        for (int i = 0; i < store.size(); i++) {
+            store.addAcceleration(i, 0, 9.81);
+        }
+        store.integrate(DT);
+    }
+}
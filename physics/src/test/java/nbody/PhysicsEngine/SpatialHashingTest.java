@@ -0,0 +1,107 @@
+package nbody.PhysicsEngine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.Test;
+
+class SpatialHashingTest {
+
+    // Widest radius is 1 and the scene starts at 0, so cells are 2 wide and
+    // every even coordinate of the lattice sits exactly on a cell edge
+    private static ParticleStore scene() {
+        ParticleStore store = new ParticleStore();
+        store.add(0, 0, 1f, 1f);
+        store.add(100, 100, 1f, 1f);
+        for (int x = 0; x <= 40; x++) {
+            for (int y = 0; y <= 40; y++) {
+                store.add(x, y, 1f, 1f);
+            }
+        }
+        Random random = new Random(5);
+        for (int i = 0; i < 500; i++) {
+            store.add(random.nextDouble() * 100, random.nextDouble() * 100, 0.2f + 0.8f * random.nextFloat(), 1f);
+        }
+        return store;
+    }
+
+
+    // After the exact overlap test the grid must give the same pairs as checking
+    // every pair, and it must not hand out any pair twice
+    @Test
+    void candidatePairsMatchBruteForce() {
+        ParticleStore store = scene();
+        SpatialHashing grid = new SpatialHashing();
+        grid.build(store);
+        assertEquals(2.0, grid.getCellSize(), 0, "cells were widened, the lattice is no longer on their edges");
+
+        Set<Long> candidates = new HashSet<>();
+        Set<Long> touching = new HashSet<>();
+        grid.processCollisions((i, j) -> {
+            assertTrue(candidates.add(pairKey(i, j)), "pair " + i + ", " + j + " handed out twice");
+            if (touches(store, i, j)) {
+                touching.add(pairKey(i, j));
+            }
+        });
+
+        Set<Long> expected = new HashSet<>();
+        for (int i = 0; i < store.size(); i++) {
+            for (int j = i + 1; j < store.size(); j++) {
+                if (touches(store, i, j)) {
+                    expected.add(pairKey(i, j));
+                }
+            }
+        }
+
+        assertTrue(expected.size() > 1000, "scene should have plenty of contacts, got " + expected.size());
+        assertEquals(expected, touching);
+    }
+
+
+    // Two row phases over the worker pool must still visit every pair exactly once
+    @Test
+    void parallelSweepGivesTheSamePairs() {
+        ParticleStore store = scene();
+        SpatialHashing grid = new SpatialHashing();
+        grid.build(store);
+
+        Set<Long> serial = new HashSet<>();
+        grid.processCollisions((i, j) -> serial.add(pairKey(i, j)));
+
+        int previous = GravityManager.getThreadCount();
+        Set<Long> parallel = ConcurrentHashMap.newKeySet();
+        Set<Long> twice = ConcurrentHashMap.newKeySet();
+        try {
+            GravityManager.setThreadCount(4);
+            grid.processCollisionsParallel((i, j) -> {
+                if (!parallel.add(pairKey(i, j))) {
+                    twice.add(pairKey(i, j));
+                }
+            });
+        }
+        finally {
+            GravityManager.setThreadCount(previous);
+        }
+
+        assertTrue(twice.isEmpty(), twice.size() + " pairs handed out twice");
+        assertEquals(serial, parallel);
+    }
+
+
+    static boolean touches(ParticleStore store, int i, int j) {
+        double dx = store.getX(j) - store.getX(i);
+        double dy = store.getY(j) - store.getY(i);
+        double reach = store.getRadius(i) + store.getRadius(j);
+        return dx * dx + dy * dy <= reach * reach;
+    }
+
+
+    static long pairKey(int i, int j) {
+        return ((long) Math.min(i, j) << 32) | Math.max(i, j);
+    }
+}
@@ -0,0 +1,92 @@
+package nbody.telemetry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.Test;
+
+class TelemetryPipelineTest {
+    private static final int RECORDS = 1000;
+
+
+    // Once the sink has thrown, every record is either written or counted as dropped
+    @Test
+    void failedSinkCountsEveryLostRecord() {
+        TelemetrySink failing = new TelemetrySink() {
+            private int calls;
+
+            @Override
+            public void write(long step, double time, double[] values) throws IOException {
+                if (++calls == 5) {
+                    throw new IOException("disk full");
+                }
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        TelemetryPipeline pipeline = new TelemetryPipeline("test", 2, 8, BackPressure.BLOCK, failing);
+        for (int step = 0; step < RECORDS; step++) {
+            boolean failed = pipeline.getFailure() != null;
+            boolean accepted = offer(pipeline, step);
+            assertFalse(failed && accepted, "record accepted after the failure");
+        }
+        pipeline.close();
+
+        assertNotNull(pipeline.getFailure());
+        assertEquals(4, pipeline.getWrittenCount());
+        assertEquals(RECORDS, pipeline.getWrittenCount() + pipeline.getDroppedCount(), "records unaccounted for");
+    }
+
+
+    // A full ring under SAMPLE thins the output out, it does not count as dropping
+    @Test
+    void sampleOverflowCountsAsSampledOut() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        TelemetrySink stalled = new TelemetrySink() {
+            @Override
+            public void write(long step, double time, double[] values) {
+                try {
+                    release.await();
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        TelemetryPipeline pipeline = new TelemetryPipeline("test", 2, 4, BackPressure.SAMPLE, stalled);
+        for (int step = 0; step < RECORDS; step++) {
+            offer(pipeline, step);
+        }
+        release.countDown();
+        pipeline.close();
+
+        assertEquals(0, pipeline.getDroppedCount());
+        assertTrue(pipeline.getSampledOutCount() > 0, "ring never overflowed");
+        assertEquals(RECORDS, pipeline.getWrittenCount() + pipeline.getSampledOutCount());
+    }
+
+
+    private static boolean offer(TelemetryPipeline pipeline, long step) {
+        double[] record = pipeline.claim(step, step * 0.016);
+        if (record == null) {
+            return false;
+        }
+        record[0] = step;
+        record[1] = -step;
+        pipeline.commit();
+        return true;
+    }
+}
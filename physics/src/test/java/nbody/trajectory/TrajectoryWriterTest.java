@@ -0,0 +1,114 @@
+package nbody.trajectory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import nbody.PhysicsEngine.ParticleStore;
+
+class TrajectoryWriterTest {
+    private static final float DT = 0.016f;
+
+
+    @Test
+    void doublesReadBackExactly() throws IOException {
+        roundTrip(true);
+    }
+
+
+    // An odd body count leaves the float blocks 4 byte aligned only
+    @Test
+    void floatsReadBackRounded() throws IOException {
+        roundTrip(false);
+    }
+
+
+    // Frames reuse the chunk's view, so appending one must not create garbage
+    @Test
+    void writeFrameAllocatesNothing() throws IOException {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        ParticleStore store = bodies(37);
+        Path path = Files.createTempFile("trajectory", ".traj");
+        try (TrajectoryWriter writer = new TrajectoryWriter(path, store, DT)) {
+            // Warm up inside the first chunk, a new chunk is a new mapping
+            for (int f = 0; f < 20_000; f++) {
+                writer.writeFrame(f, f * DT);
+            }
+
+            long thread = Thread.currentThread().threadId();
+            int frames = 1000;
+            long before = threads.getThreadAllocatedBytes(thread);
+            for (int f = 0; f < frames; f++) {
+                writer.writeFrame(f, f * DT);
+            }
+            long after = threads.getThreadAllocatedBytes(thread);
+
+            assertEquals(0, (after - before) / frames, "bytes allocated per frame");
+        }
+        finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+
+    private static void roundTrip(boolean doubles) throws IOException {
+        ParticleStore store = bodies(37);
+        int n = store.size();
+        int blocks = TrajectoryFormat.valueBlocks(TrajectoryFormat.ALL);
+        double[][] expected = new double[5][blocks * n];
+
+        Path path = Files.createTempFile("trajectory", ".traj");
+        try {
+            try (TrajectoryWriter writer = new TrajectoryWriter(path, store, DT, TrajectoryFormat.ALL, doubles)) {
+                for (int f = 0; f < expected.length; f++) {
+                    for (int i = 0; i < n; i++) {
+                        store.addAcceleration(i, 0, 9.81);
+                    }
+                    store.integrate(DT);
+                    TrajectoryWriter.capture(store, DT, TrajectoryFormat.ALL, expected[f], 0);
+                    writer.writeFrame(f * 10L, f * 10 * DT);
+                }
+            }
+
+            try (TrajectoryReader reader = new TrajectoryReader(path)) {
+                assertEquals(expected.length, reader.getFrameCount());
+                double[] column = new double[n];
+                for (int f = 0; f < expected.length; f++) {
+                    assertEquals(f * 10L, reader.getStep(f));
+                    for (int c = 0; c < blocks; c++) {
+                        reader.readColumn(f, c, column);
+                        for (int i = 0; i < n; i++) {
+                            double want = expected[f][c * n + i];
+                            assertEquals(doubles ? want : (float) want, column[i], 0,
+                                    "frame " + f + ", " + reader.getColumnNames()[c] + " of body " + i);
+                        }
+                    }
+                }
+            }
+        }
+        finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+
+    private static ParticleStore bodies(int n) {
+        ParticleStore store = new ParticleStore(n);
+        Random rand = new Random(8);
+        for (int i = 0; i < n; i++) {
+            store.add(rand.nextDouble() * 800, rand.nextDouble() * 600, 1f, 1e12f);
+        }
+        return store;
+    }
+}